@@ -0,0 +1,194 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * AIMD limit of the orders in flight of an auto-tune run, from their submit to their
+ * result. Every interval the p99 latency and the error rate of the orders completed in
+ * it are checked against the SLO: if both are met the limit grows by additive-increase,
+ * if not it is multiplied by decrease-factor. The interval with the highest throughput
+ * that met the SLO is the knee of the target, the capacity reported at the end.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final Logger LOGGER = Logger.getLogger(AdaptiveConcurrencyLimit.class.getName());
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+    // last adjustments kept for the report
+    private static final int MAX_STEPS = 50;
+
+    private final long sloP99Micros;
+    private final double maxErrorRate;
+    private final long intervalNanos;
+    private final int minSamples;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int additiveIncrease;
+    private final double decreaseFactor;
+
+    private final ResizableSemaphore permits;
+    private final Recorder latencies = new Recorder(2);
+    private final LongAdder errors   = new LongAdder();
+    private final Deque<JsonObject> steps = new ArrayDeque<>();
+
+    private volatile int limit;
+    private long intervalStartNanos;
+    private Histogram sample;
+    private final Histogram interval = new Histogram(2);
+
+    // knee: best interval within the SLO
+    private int kneeLimit;
+    private long kneeOrdersPerSecond = -1;
+    private double kneeP99Ms;
+
+    public AdaptiveConcurrencyLimit(JsonObject autoTuneObj) {
+        double sloP99Ms = ConfigValues.doubleValue(autoTuneObj, "p99-ms", 0);
+        this.sloP99Micros     = Math.round(sloP99Ms * 1000);
+        this.maxErrorRate     = ConfigValues.doubleValue(autoTuneObj, "max-error-rate", 0.01);
+        this.intervalNanos    = TimeUnit.MILLISECONDS.toNanos(ConfigValues.intValue(autoTuneObj, "interval-ms", 2000));
+        this.minSamples       = ConfigValues.intValue(autoTuneObj, "min-samples", 20);
+        this.minLimit         = ConfigValues.intValue(autoTuneObj, "min-concurrency", 1);
+        this.maxLimit         = ConfigValues.intValue(autoTuneObj, "max-concurrency", 1000);
+        this.additiveIncrease = ConfigValues.intValue(autoTuneObj, "additive-increase", 1);
+        this.decreaseFactor   = ConfigValues.doubleValue(autoTuneObj, "decrease-factor", 0.75);
+        this.limit            = ConfigValues.intValue(autoTuneObj, "initial-concurrency", minLimit);
+
+        if (sloP99Ms <= 0)
+            throw new IllegalArgumentException("auto-tune.p99-ms -> must be greater than 0");
+        if (maxErrorRate < 0 || maxErrorRate > 1)
+            throw new IllegalArgumentException("auto-tune.max-error-rate -> must be between 0 and 1");
+        if (intervalNanos <= 0 || minSamples <= 0 || additiveIncrease <= 0)
+            throw new IllegalArgumentException("auto-tune.interval-ms, min-samples, additive-increase -> must be greater than 0");
+        if (minLimit <= 0 || maxLimit < minLimit || limit < minLimit || limit > maxLimit)
+            throw new IllegalArgumentException("auto-tune -> 0 < min-concurrency <= initial-concurrency <= max-concurrency");
+        if (decreaseFactor <= 0 || decreaseFactor >= 1)
+            throw new IllegalArgumentException("auto-tune.decrease-factor -> must be between 0 and 1");
+
+        this.permits = new ResizableSemaphore(limit);
+    }
+
+    /**
+     * Starts the first interval.
+     */
+    void start() {
+        intervalStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits for room under the limit. Called by the submitting thread, which also
+     * adjusts the limit at the end of each interval.
+     *
+     * @return false if there is no room after the timeout, to check the run again
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        adjust();
+        return permits.tryAcquire(timeout, unit);
+    }
+
+    /**
+     * Gives back the permit of an order when its result arrives.
+     *
+     * @param latencyNanos time from the submit of the order to its result
+     * @param failed true if the order failed
+     */
+    void release(long latencyNanos, boolean failed) {
+        latencies.recordValue(Math.max(0, latencyNanos / 1000));
+        if (failed)
+            errors.increment();
+        permits.release();
+    }
+
+    /**
+     * Gives back the permit of an order that didn't run, no sample is recorded.
+     */
+    void release() {
+        permits.release();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private void adjust() {
+        long now = System.nanoTime();
+        long elapsedNanos = now - intervalStartNanos;
+        if (elapsedNanos < intervalNanos)
+            return;
+
+        sample = latencies.getIntervalHistogram(sample);
+        interval.add(sample);
+        long completed = interval.getTotalCount();
+        // too few results to judge the interval, it goes on until there are
+        if (completed < minSamples)
+            return;
+
+        long failed           = errors.sumThenReset();
+        long p99Micros        = interval.getValueAtPercentile(99);
+        double errorRate      = (double) failed / completed;
+        long ordersPerSecond  = completed * 1_000_000_000L / elapsedNanos;
+        boolean withinSlo     = p99Micros <= sloP99Micros && errorRate <= maxErrorRate;
+        intervalStartNanos    = now;
+        interval.reset();
+
+        int newLimit = withinSlo ? Math.min(maxLimit, limit + additiveIncrease)
+                                 : Math.max(minLimit, (int) (limit * decreaseFactor));
+        addStep(ordersPerSecond, p99Micros, errorRate, withinSlo);
+        LOGGER.info("Auto-tune: concurrency[" + limit + "] | ordersPerSecond[" + ordersPerSecond + "] | p99Ms["
+                    + (p99Micros / 1000.0) + "] | errorRate[" + errorRate + "] -> concurrency[" + newLimit + "]");
+        if (newLimit > limit)
+            permits.release(newLimit - limit);
+        else if (newLimit < limit)
+            permits.reducePermits(limit - newLimit);
+        limit = newLimit;
+    }
+
+    private synchronized void addStep(long ordersPerSecond, long p99Micros, double errorRate, boolean withinSlo) {
+        if (withinSlo && ordersPerSecond > kneeOrdersPerSecond) {
+            kneeLimit           = limit;
+            kneeOrdersPerSecond = ordersPerSecond;
+            kneeP99Ms           = p99Micros / 1000.0;
+        }
+        if (steps.size() == MAX_STEPS)
+            steps.removeFirst();
+        steps.addLast(JSON.createObjectBuilder()
+                          .add("concurrency", limit)
+                          .add("orders-per-second", ordersPerSecond)
+                          .add("p99-ms", p99Micros / 1000.0)
+                          .add("error-rate", errorRate)
+                          .add("within-slo", withinSlo)
+                          .build());
+    }
+
+    /**
+     * @return the knee, the last concurrency and the last adjustments
+     */
+    public synchronized JsonObject toJson() {
+        JsonObjectBuilder result = JSON.createObjectBuilder().add("final-concurrency", limit);
+        if (kneeOrdersPerSecond >= 0) {
+            result.add("knee", JSON.createObjectBuilder()
+                                   .add("concurrency", kneeLimit)
+                                   .add("orders-per-second", kneeOrdersPerSecond)
+                                   .add("p99-ms", kneeP99Ms));
+        }
+        else {
+            // the SLO was never met
+            result.addNull("knee");
+        }
+        JsonArrayBuilder history = JSON.createArrayBuilder();
+        steps.forEach(history::add);
+        return result.add("steps", history).build();
+    }
+}
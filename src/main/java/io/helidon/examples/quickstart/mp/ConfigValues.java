@@ -0,0 +1,43 @@
+package io.helidon.examples.quickstart.mp;
+
+import javax.json.JsonObject;
+import javax.json.JsonValue.ValueType;
+
+/**
+ * Helpers to read optional sim-config values. Like min-threads/max-threads,
+ * numeric values can be sent either as a JSON number or as a JSON string.
+ */
+final class ConfigValues {
+
+    private ConfigValues() {
+    }
+
+    static int intValue(JsonObject jsonObject, String field, int defaultValue) {
+        if (jsonObject == null || !jsonObject.containsKey(field))
+            return defaultValue;
+        if (jsonObject.get(field).getValueType() == ValueType.STRING)
+            return Integer.parseInt(jsonObject.getString(field));
+        if (jsonObject.get(field).getValueType() == ValueType.NUMBER)
+            return jsonObject.getInt(field);
+
+        throw new IllegalArgumentException(field + " -> type missmatch");
+    }
+
+    static double doubleValue(JsonObject jsonObject, String field, double defaultValue) {
+        if (jsonObject == null || !jsonObject.containsKey(field))
+            return defaultValue;
+        if (jsonObject.get(field).getValueType() == ValueType.STRING)
+            return Double.parseDouble(jsonObject.getString(field));
+        if (jsonObject.get(field).getValueType() == ValueType.NUMBER)
+            return jsonObject.getJsonNumber(field).doubleValue();
+
+        throw new IllegalArgumentException(field + " -> type missmatch");
+    }
+
+    static String stringValue(JsonObject jsonObject, String field, String defaultValue) {
+        if (jsonObject == null || !jsonObject.containsKey(field))
+            return defaultValue;
+
+        return jsonObject.getString(field);
+    }
+}
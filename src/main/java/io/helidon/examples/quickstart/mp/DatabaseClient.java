@@ -1,335 +1,181 @@
 package io.helidon.examples.quickstart.mp;
 
-import java.io.IOException;
-import java.sql.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.json.JsonObject;
-
-import oracle.ucp.jdbc.PoolDataSource;
-import oracle.ucp.jdbc.PoolDataSourceFactory;
+import javax.sql.DataSource;
 
+/**
+ * Runs the DATABASE mode statements. Connections are borrowed from the shared
+ * pool of {@link DatabasePoolManager} and given back after every statement.
+ *
+ * Every statement is fixed SQL text with bind variables, so Oracle parses each of
+ * them once and the pooled connections reuse them from the statement cache.
+ */
 public class DatabaseClient {
     private static final Logger LOGGER = Logger.getLogger(DatabaseClient.class.getName());
 
-    private PoolDataSource poolDataSource;
-    private String dbUser     = System.getenv().get("DB_USER");
-    private String dbPassword = System.getenv().get("DB_PASSWORD");
-    private String dbUrl      = System.getenv().get("DB_URL") + System.getenv().get("DB_SERVICE_NAME") + "?TNS_ADMIN=/function/wallet";
-    private String clientCred = "/function/wallet";
-    private String keyStorePassword   = "";
-    private String truststorePassword = "";
+    static final String INSERT_ORDER_SQL     = "INSERT INTO MICROSERVICE.PIZZAORDER (ID,DATA,TIMESTAMP) VALUES (?,?,?)";
+    static final String UPDATE_TOPPINGS_SQL  = "UPDATE MICROSERVICE.TOPPING_STORAGE SET consumed = consumed + 1 WHERE topping in (?,?,?) ";
+    static final String UPDATE_BASEPIZZA_SQL = "UPDATE MICROSERVICE.BASEPIZZA_STORAGE SET consumed = consumed + 1 WHERE basepizza = ? ";
+    static final String ADD_TOPPING_SQL      = "UPDATE MICROSERVICE.TOPPING_STORAGE SET consumed = consumed + ? WHERE topping = ? ";
+    static final String ADD_BASEPIZZA_SQL    = "UPDATE MICROSERVICE.BASEPIZZA_STORAGE SET consumed = consumed + ? WHERE basepizza = ? ";
 
-    public DatabaseClient (String dbUrl,                             
-                            String dbUser, 
-                            String dbPassword, 
-                            String clientCred,
-                            String keyStorePassword, 
-                            String truststorePassword) {
-        this.dbUrl      = dbUrl;
-        this.clientCred = clientCred;
-        this.dbUser     = dbUser;
-        this.dbPassword = dbPassword;
+    private final DataSource dataSource;
+    private final InventoryCatalog catalog;
+    private final SqlDialect dialect;
 
-        this.keyStorePassword   = keyStorePassword;
-        this.truststorePassword = truststorePassword;
+    public DatabaseClient (DataSource dataSource, InventoryCatalog catalog, SqlDialect dialect) {
+        this.dataSource = dataSource;
+        this.catalog    = catalog;
+        this.dialect    = dialect;
+    }
 
-        //if an ATP connection then the new ATP connection string is:
-        //daseURL?TNS_ADMIN=<client_credentials_url>
-        if (!this.clientCred.equals("")) 
-            this.dbUrl +="?TNS_ADMIN="+this.clientCred;
+    private Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
     }
 
-    private void getConnectionPool(){        
-        LOGGER.info("Setting up pool data source");        
-        poolDataSource = PoolDataSourceFactory.getPoolDataSource();
-        try {
-            poolDataSource.setConnectionFactoryClassName("oracle.jdbc.pool.OracleDataSource");
-            poolDataSource.setURL(dbUrl);
-            poolDataSource.setUser(dbUser);
-            poolDataSource.setPassword(dbPassword);
-            poolDataSource.setConnectionPoolName("UCP_POOL");
-        }
-        catch (SQLException e) {
-            System.out.println("Pool data source error!");
-            e.printStackTrace();
-        }
-        System.err.println("Pool data source setup...");
+    static void bindInsertOrder(PreparedStatement pstat, GeneratedOrder order, long timestamp) throws SQLException {
+        pstat.setString(1,order.orderId);
+        pstat.setString(2,OrderJsonSerializer.orderToString(order));
+        pstat.setLong  (3,timestamp);
     }
 
-    private PoolDataSource getPoolDataSource(){
-        return this.poolDataSource;
+    static void bindInsertPayment(PreparedStatement pstat, SqlDialect dialect, GeneratedOrder order) throws SQLException {
+        pstat.setString(1,order.orderId);
+        dialect.bindPaymentTime(pstat, 2, order.dateTime);
+        pstat.setString(3,order.paymentMethod);
+        pstat.setFloat (4,Float.parseFloat(order.originalPrice));
+        //pstat.setInt   (5,Integer.parseInt(servSurvey));
+        pstat.setFloat (5,Float.parseFloat(order.totalPaid));
+        pstat.setString(6,GeneratedOrder.CUSTOMER_ID);
     }
 
-    private Connection getConnectionThin() throws SQLException, IOException {        
-        LOGGER.info("SQLDB_URL:      " + dbUrl);        
-        LOGGER.info("SQLDB_USERNAME: " + dbUser);
-        LOGGER.info("SQLDB_PASSWORD: " + "********");
-        LOGGER.info("SQLDB_KEYSTOREPASSWORD  : " + (keyStorePassword.equals("")? "False" : "true"));
-        LOGGER.info("SQLDB_TRUSTSTOREPASSWORD: " + (truststorePassword.equals("")? "False" : "true"));
+    static void bindUpdateToppings(PreparedStatement pstat, InventoryCatalog catalog, GeneratedOrder order) throws SQLException {
+        pstat.setString(1,catalog.toppingKey(order.topping1));
+        pstat.setString(2,catalog.toppingKey(order.topping2));
+        pstat.setString(3,catalog.toppingKey(order.topping3));
+    }
 
-        System.setProperty("oracle.jdbc.driver.OracleDriver", "true");
-        System.setProperty("oracle.jdbc.fanEnabled", "false");
-        System.setProperty("oracle.net.ssl_version", "1.2");       
-        System.setProperty("javax.net.ssl.keyStore", clientCred + "/keystore.jks");
-        System.setProperty("javax.net.ssl.keyStorePassword", keyStorePassword);
-        System.setProperty("javax.net.ssl.trustStore", clientCred + "/truststore.jks");
-        System.setProperty("javax.net.ssl.trustStorePassword", truststorePassword);
-        System.setProperty("oracle.net.tns_admin", clientCred);
-        
-        DriverManager.registerDriver(new oracle.jdbc.OracleDriver());
-                
-        return DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+    static void bindUpdateBasePizza(PreparedStatement pstat, InventoryCatalog catalog, GeneratedOrder order) throws SQLException {
+        pstat.setString(1,catalog.basePizzaKey(order.baseType));
     }
 
-    public String executeInsertOrder(JsonObject pizzaOrder) { 
+    public String executeInsertOrder(GeneratedOrder order) { 
         String dbresult = "";  
-        Connection conn = null;      
-        try {
-            conn = getConnectionThin();
-            if (conn!= null){
-                // Insert some data                             
-                StringBuffer insertSQL = new StringBuffer("INSERT INTO MICROSERVICE.PIZZAORDER (")
-                                                .append("ID").append(",")
-                                                .append("DATA").append(",")
-                                                .append("TIMESTAMP").append(")")
-                                                .append(" VALUES (?,?,"+System.currentTimeMillis() +")");
-    
-                // logging values passed:
-                LOGGER.info(insertSQL.toString());
-                LOGGER.info("parameter 1 OrderID: "  + pizzaOrder.getString("orderId"));
-                LOGGER.info("parameter 2 Data:    "  + pizzaOrder.toString());
-                               
-                PreparedStatement pstat = conn.prepareStatement(insertSQL.toString());
-    
-                pstat.setString(1,pizzaOrder.getString("orderId"));
-                pstat.setString(2,pizzaOrder.toString());
-    
-                if (pstat.executeUpdate() > 0){
-                    dbresult = "PizzaOrder with orderId["+pizzaOrder.getString("orderId")+"] inserted OK!";
-                }
-                else {
-                    LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT PizzaOrder with orderId["+pizzaOrder.getString("orderId")+"] result <= 0");
-                    dbresult = "ERROR IN DB INSERT PizzaOrder with orderId["+pizzaOrder.getString("orderId")+"] result <= 0";
-                }
-                conn.close();
+        try (Connection conn = getConnection();
+             PreparedStatement pstat = conn.prepareStatement(INSERT_ORDER_SQL)) {
+            long timestamp = System.currentTimeMillis();
+
+            // logging values passed:
+            LOGGER.info(INSERT_ORDER_SQL);
+            LOGGER.info("parameter 1 OrderID: "  + order.orderId);
+            LOGGER.info("parameter 2 Data:    "  + OrderJsonSerializer.orderToString(order));
+            LOGGER.info("parameter 3 Timestamp: "  + timestamp);
+
+            bindInsertOrder(pstat, order, timestamp);
+
+            if (pstat.executeUpdate() > 0){
+                dbresult = "PizzaOrder with orderId["+order.orderId+"] inserted OK!";
             }
             else {
-                LOGGER.log(Level.SEVERE,"ERROR ["+pizzaOrder.getString("orderId")+"] Connection null!");
-                dbresult = "ERROR ["+pizzaOrder.getString("orderId")+"] Connection null!";
+                LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT PizzaOrder with orderId["+order.orderId+"] result <= 0");
+                dbresult = "ERROR IN DB INSERT PizzaOrder with orderId["+order.orderId+"] result <= 0";
             }
         }
         catch (Exception ex){
-            try{
-                if (conn != null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+pizzaOrder.getString("orderId")+"] " + ex.getMessage());    
-            }
-            
             ex.printStackTrace();
-            LOGGER.log(Level.SEVERE,"ERROR ["+pizzaOrder.getString("orderId")+"] " + ex.getMessage());
-            dbresult = "ERROR ["+pizzaOrder.getString("orderId")+"] " + ex.getMessage();
+            LOGGER.log(Level.SEVERE,"ERROR ["+order.orderId+"] " + ex.getMessage());
+            dbresult = "ERROR ["+order.orderId+"] " + ex.getMessage();
         }
-        finally{
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+pizzaOrder.getString("orderId")+"] " + sqlex.getMessage());    
-            }
-        }        
         return dbresult;
     }
 
-    public String executeInsertPayment(JsonObject jsonPayment) { 
+    public String executeInsertPayment(GeneratedOrder order) { 
         String dbresult = "";
-        Connection conn = null;
-        try {
-            conn = getConnectionThin();
-            if (conn!=null) {                
-                StringBuffer insertSQL = new StringBuffer("INSERT INTO MICROSERVICE.PAYMENTS (")
-                                                .append("PAYMENTCODE").append(",")
-                                                .append("ORDERID").append(",")
-                                                .append("PAYMENTTIME").append(",")
-                                                .append("PAYMENTMETHOD").append(",")
-                                                //.append("SERVICESURVEY").append(",")
-                                                .append("ORIGINALPRICE").append(",")
-                                                .append("TOTALPAID").append(",")
-                                                .append("CUSTOMERID").append(")")
-                                                .append(" VALUES (MICROSERVICE.PAYMENT_SEQ.nextval,")
-                                                .append("?,TO_TIMESTAMP(?,'YYYY-MM-DD\"T\"HH24:MI:SS.ff3\"Z\"'),?,?,?,?)");
-    
-                // logging values passed:
-                LOGGER.info(insertSQL.toString());
-                LOGGER.info("parameter 1 orderId      : " + jsonPayment.getString("orderId"));
-                LOGGER.info("parameter 2 paymentTime  : " + jsonPayment.getString("paymentTime"));
-                LOGGER.info("parameter 3 paymentMethod: " + jsonPayment.getString("paymentMethod"));
-                LOGGER.info("parameter 4 originalPrice: " + jsonPayment.getString("originalPrice"));
-                //System.out.println("parameter 5 servSurvey: " + servSurvey);
-                LOGGER.info("parameter 5 totalPaid    : " + jsonPayment.getString("totalPaid"));
-                LOGGER.info("parameter 6 customerId   : " + jsonPayment.getString("customerId"));
-    
-                PreparedStatement pstat = conn.prepareStatement(insertSQL.toString());
-    
-                pstat.setString(1,jsonPayment.getString("orderId"));
-                pstat.setString(2,jsonPayment.getString("paymentTime"));
-                pstat.setString(3,jsonPayment.getString("paymentMethod"));
-                pstat.setFloat (4,Float.parseFloat(jsonPayment.getString("originalPrice")));
-                //pstat.setInt   (5,Integer.parseInt(servSurvey));
-                pstat.setFloat (5,Float.parseFloat(jsonPayment.getString("totalPaid")));
-                pstat.setString(6,jsonPayment.getString("customerId"));
-    
-                if (pstat.executeUpdate() > 0){
-                    dbresult = "Payment for orderId["+jsonPayment.getString("orderId")+"] inserted OK!";
-                }
-                else {
-                    LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+jsonPayment.getString("orderId")+"] result <= 0");
-                    dbresult = "ERROR IN DB INSERT orderId["+jsonPayment.getString("orderId")+"] result <= 0";
-                }
-                conn.close();
+        try (Connection conn = getConnection();
+             PreparedStatement pstat = conn.prepareStatement(dialect.getInsertPaymentSql())) {
+            // logging values passed:
+            LOGGER.info(dialect.getInsertPaymentSql());
+            LOGGER.info("parameter 1 orderId      : " + order.orderId);
+            LOGGER.info("parameter 2 paymentTime  : " + order.dateTime);
+            LOGGER.info("parameter 3 paymentMethod: " + order.paymentMethod);
+            LOGGER.info("parameter 4 originalPrice: " + order.originalPrice);
+            LOGGER.info("parameter 5 totalPaid    : " + order.totalPaid);
+            LOGGER.info("parameter 6 customerId   : " + GeneratedOrder.CUSTOMER_ID);
+
+            bindInsertPayment(pstat, dialect, order);
+
+            if (pstat.executeUpdate() > 0){
+                dbresult = "Payment for orderId["+order.orderId+"] inserted OK!";
             }
             else {
-                LOGGER.log(Level.SEVERE,"ERROR ["+jsonPayment.getString("orderId")+"] Connection null!");
-                dbresult = "ERROR ["+jsonPayment.getString("orderId")+"] Connection null!";
+                LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0");
+                dbresult = "ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0";
             }
         }
         catch (Exception ex){
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPayment.getString("orderId")+"] " + ex.getMessage());    
-            }
             ex.printStackTrace();
-            LOGGER.log(Level.SEVERE,"ERROR ["+jsonPayment.getString("orderId")+"] " + ex.getMessage());
-            dbresult = "ERROR ["+jsonPayment.getString("orderId")+"] " + ex.getMessage();
-        }
-        finally{
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPayment.getString("orderId")+"] " + sqlex.getMessage());    
-            }
+            LOGGER.log(Level.SEVERE,"ERROR ["+order.orderId+"] " + ex.getMessage());
+            dbresult = "ERROR ["+order.orderId+"] " + ex.getMessage();
         }
         return dbresult;
     }
 
-    public String executeUpdateIngredients(JsonObject jsonPizzaOrder) { 
+    public String executeUpdateIngredients(GeneratedOrder order) { 
         String dbresult = "";
-        Connection conn = null;
-        try {
-            conn = getConnectionThin();
-            if (conn!=null) {                
-                StringBuffer updateSQL = new StringBuffer("UPDATE MICROSERVICE.TOPPING_STORAGE SET consumed = consumed + 1 WHERE topping in (?,?,?) ");
-    
-                // logging values passed:
-                LOGGER.info(updateSQL.toString());
-                LOGGER.info("parameter 1 topping 1 : " + jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping1"));
-                LOGGER.info("parameter 2 topping 2 : " + jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping2"));
-                LOGGER.info("parameter 3 topping 3 : " + jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping3"));
-    
-                PreparedStatement pstat = conn.prepareStatement(updateSQL.toString());
-    
-                pstat.setString(1,jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping1"));
-                pstat.setString(2,jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping2"));
-                pstat.setString(3,jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("topping3"));
-    
-                if (pstat.executeUpdate() > 0){
-                    dbresult = "toppings for orderId["+jsonPizzaOrder.getString("orderId")+"] inserted OK!";
-                }
-                else {
-                    LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+jsonPizzaOrder.getString("orderId")+"] result <= 0");
-                    dbresult = "ERROR IN DB INSERT orderId["+jsonPizzaOrder.getString("orderId")+"] result <= 0";
-                }
-                conn.close();
+        try (Connection conn = getConnection();
+             PreparedStatement pstat = conn.prepareStatement(UPDATE_TOPPINGS_SQL)) {
+            // logging values passed:
+            LOGGER.info(UPDATE_TOPPINGS_SQL);
+            LOGGER.info("parameter 1 topping 1 : " + order.topping1);
+            LOGGER.info("parameter 2 topping 2 : " + order.topping2);
+            LOGGER.info("parameter 3 topping 3 : " + order.topping3);
+
+            bindUpdateToppings(pstat, catalog, order);
+
+            if (pstat.executeUpdate() > 0){
+                dbresult = "toppings for orderId["+order.orderId+"] inserted OK!";
             }
             else {
-                LOGGER.log(Level.SEVERE,"ERROR ["+jsonPizzaOrder.getString("orderId")+"] Connection null!");
-                dbresult = "ERROR ["+jsonPizzaOrder.getString("orderId")+"] Connection null!";
+                LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0");
+                dbresult = "ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0";
             }
         }
         catch (Exception ex){
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage());    
-            }
             ex.printStackTrace();
-            LOGGER.log(Level.SEVERE,"ERROR ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage());
-            dbresult = "ERROR ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage();
-        }
-        finally{
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPizzaOrder.getString("orderId")+"] " + sqlex.getMessage());    
-            }
+            LOGGER.log(Level.SEVERE,"ERROR ["+order.orderId+"] " + ex.getMessage());
+            dbresult = "ERROR ["+order.orderId+"] " + ex.getMessage();
         }
         return dbresult;
     }
 
-    public String executeUpdateBasePizza(JsonObject jsonPizzaOrder) { 
+    public String executeUpdateBasePizza(GeneratedOrder order) { 
         String dbresult = "";
-        Connection conn = null;
-        try {
-            conn = getConnectionThin();
-            if (conn!=null) {                
-                StringBuffer updateSQL = new StringBuffer("UPDATE MICROSERVICE.BASEPIZZA_STORAGE SET consumed = consumed + 1 WHERE basepizza LIKE ? ");
-    
-                // logging values passed:
-                LOGGER.info(updateSQL.toString());
-                LOGGER.info("parameter 1 basetype : " + jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("baseType"));
-    
-                PreparedStatement pstat = conn.prepareStatement(updateSQL.toString());
-    
-                pstat.setString(1,"%" + jsonPizzaOrder.getJsonObject("pizzaOrdered").getString("baseType"));
-    
-                if (pstat.executeUpdate() > 0){
-                    dbresult = "basetype for orderId["+jsonPizzaOrder.getString("orderId")+"] inserted OK!";
-                }
-                else {
-                    LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+jsonPizzaOrder.getString("orderId")+"] result <= 0");
-                    dbresult = "ERROR IN DB INSERT orderId["+jsonPizzaOrder.getString("orderId")+"] result <= 0";
-                }
-                conn.close();
+        try (Connection conn = getConnection();
+             PreparedStatement pstat = conn.prepareStatement(UPDATE_BASEPIZZA_SQL)) {
+            // logging values passed:
+            LOGGER.info(UPDATE_BASEPIZZA_SQL);
+            LOGGER.info("parameter 1 basetype : " + order.baseType);
+
+            bindUpdateBasePizza(pstat, catalog, order);
+
+            if (pstat.executeUpdate() > 0){
+                dbresult = "basetype for orderId["+order.orderId+"] inserted OK!";
             }
             else {
-                LOGGER.log(Level.SEVERE,"ERROR ["+jsonPizzaOrder.getString("orderId")+"] Connection null!");
-                dbresult = "ERROR ["+jsonPizzaOrder.getString("orderId")+"] Connection null!";
+                LOGGER.log(Level.SEVERE,"ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0");
+                dbresult = "ERROR IN DB INSERT orderId["+order.orderId+"] result <= 0";
             }
         }
         catch (Exception ex){
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage());    
-            }
             ex.printStackTrace();
-            LOGGER.log(Level.SEVERE,"ERROR ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage());
-            dbresult = "ERROR ["+jsonPizzaOrder.getString("orderId")+"] " + ex.getMessage();
-        }
-        finally{
-            try{
-                if (conn!=null)
-                    conn.close();
-            }
-            catch(SQLException sqlex){
-                LOGGER.log(Level.SEVERE,"ERROR close connection on Order ["+jsonPizzaOrder.getString("orderId")+"] " + sqlex.getMessage());    
-            }
+            LOGGER.log(Level.SEVERE,"ERROR ["+order.orderId+"] " + ex.getMessage());
+            dbresult = "ERROR ["+order.orderId+"] " + ex.getMessage();
         }
         return dbresult;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package io.helidon.examples.quickstart.mp;
+
+import javax.json.JsonObject;
+
+/**
+ * Values of the sim-config -> database section used to open the connection pool.
+ *
+ * Pool sizes are optional, by default the pool follows the simulation threads:
+ * min-pool-size and initial-pool-size = min-threads, max-pool-size = max-threads.
+ *
+ * The "sink" is oracle (default) for the ATP schema with its wallet, jdbc for any
+ * database whose JDBC "driver" is in the classpath, and memory for no database, that
+ * needs no connection values. See {@link OrderSink}.
+ */
+public class DatabaseConfig {
+    static final String ORACLE_SINK = "oracle";
+    static final String JDBC_SINK   = "jdbc";
+    static final String MEMORY_SINK = "memory";
+
+    private static final String ORACLE_DATASOURCE = "oracle.jdbc.pool.OracleDataSource";
+
+    private final String sink;
+    private final String connectionFactory;
+    private final SqlDialect dialect;
+    private final boolean initSchema;
+
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final String clientCred;
+    private final String keystorePassword;
+    private final String truststorePassword;
+
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final int initialPoolSize;
+    private final int statementCacheSize;
+
+    private final int batchSize;
+    private final int batchFlushMs;
+    private final int commitEvery;
+    private final int inventoryFlushMs;
+
+    public DatabaseConfig(JsonObject dataBaseObj, int minThreads, int maxThreads) {
+        this.sink = sinkOf(dataBaseObj);
+        this.connectionFactory = sink.equals(JDBC_SINK) ? ConfigValues.stringValue(dataBaseObj, "driver", "") : ORACLE_DATASOURCE;
+        this.dialect           = SqlDialect.of(ConfigValues.stringValue(dataBaseObj, "dialect", sink.equals(JDBC_SINK) ? "standard" : "oracle"));
+        this.initSchema = dataBaseObj.getBoolean("init-schema", false);
+
+        this.dbUrl              = ConfigValues.stringValue(dataBaseObj, "connection-string", "");
+        this.dbUser             = ConfigValues.stringValue(dataBaseObj, "user", "");
+        this.dbPassword         = ConfigValues.stringValue(dataBaseObj, "password", "");
+        this.clientCred         = ConfigValues.stringValue(dataBaseObj, "client-credentials", "");
+        this.keystorePassword   = ConfigValues.stringValue(dataBaseObj, "keystore-password", "");
+        this.truststorePassword = ConfigValues.stringValue(dataBaseObj, "truststore-password", "");
+
+        this.maxPoolSize     = ConfigValues.intValue(dataBaseObj, "max-pool-size", maxThreads);
+        this.minPoolSize     = Math.min(ConfigValues.intValue(dataBaseObj, "min-pool-size", minThreads), maxPoolSize);
+        this.initialPoolSize = Math.min(ConfigValues.intValue(dataBaseObj, "initial-pool-size", minPoolSize), maxPoolSize);
+
+        this.statementCacheSize = ConfigValues.intValue(dataBaseObj, "statement-cache-size", 20);
+
+        this.batchSize    = ConfigValues.intValue(dataBaseObj, "batch-size", 1);
+        this.batchFlushMs = ConfigValues.intValue(dataBaseObj, "batch-flush-ms", 200);
+        this.commitEvery  = ConfigValues.intValue(dataBaseObj, "commit-every", 0);
+
+        this.inventoryFlushMs = ConfigValues.intValue(dataBaseObj, "inventory-flush-ms", 0);
+    }
+
+    /**
+     * @param dataBaseObj the database section
+     * @return its sink, oracle by default
+     * @throws IllegalArgumentException if it is not oracle, jdbc or memory
+     */
+    static String sinkOf(JsonObject dataBaseObj) {
+        String sink = ConfigValues.stringValue(dataBaseObj, "sink", ORACLE_SINK);
+        if (!sink.equals(ORACLE_SINK) && !sink.equals(JDBC_SINK) && !sink.equals(MEMORY_SINK))
+            throw new IllegalArgumentException("database.sink -> " + sink + " not valid, use oracle, jdbc or memory");
+        return sink;
+    }
+
+    String getSink() {
+        return sink;
+    }
+
+    /**
+     * @return the UCP connection factory, a DataSource or a java.sql.Driver class
+     */
+    String getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * @return true to create the MICROSERVICE.* tables if they are not there
+     */
+    boolean isInitSchema() {
+        return initSchema;
+    }
+
+    /**
+     * Pools are shared between simulations that target the same database, user and wallet.
+     *
+     * @return the pool key
+     */
+    String getPoolKey() {
+        return dbUrl + "|" + dbUser + "|" + clientCred;
+    }
+
+    /**
+     * If an ATP connection then the new ATP connection string is:
+     * dbURL?TNS_ADMIN=client_credentials_url
+     *
+     * @return the JDBC url
+     */
+    String getJdbcUrl() {
+        if (!clientCred.equals(""))
+            return dbUrl + "?TNS_ADMIN=" + clientCred;
+        return dbUrl;
+    }
+
+    String getDbUser() {
+        return dbUser;
+    }
+
+    String getDbPassword() {
+        return dbPassword;
+    }
+
+    String getClientCred() {
+        return clientCred;
+    }
+
+    String getKeystorePassword() {
+        return keystorePassword;
+    }
+
+    String getTruststorePassword() {
+        return truststorePassword;
+    }
+
+    int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    int getInitialPoolSize() {
+        return initialPoolSize;
+    }
+
+    /**
+     * Statements cached per pooled connection, 0 disables the cache.
+     *
+     * @return the statement cache size
+     */
+    int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Orders sent in one JDBC batch, 1 means no batching.
+     *
+     * @return the batch size
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    int getBatchFlushMs() {
+        return batchFlushMs;
+    }
+
+    /**
+     * Orders committed together in unit-of-work mode, 0 means one auto-commit per statement.
+     *
+     * @return the orders per commit
+     */
+    int getCommitEvery() {
+        return commitEvery;
+    }
+
+    /**
+     * Interval of the aggregated TOPPING_STORAGE/BASEPIZZA_STORAGE updates, 0 means
+     * one update per order.
+     *
+     * @return the flush interval in milliseconds
+     */
+    int getInventoryFlushMs() {
+        return inventoryFlushMs;
+    }
+}
@@ -0,0 +1,183 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import oracle.ucp.admin.UniversalConnectionPoolManager;
+import oracle.ucp.admin.UniversalConnectionPoolManagerImpl;
+import oracle.ucp.jdbc.PoolDataSource;
+import oracle.ucp.jdbc.PoolDataSourceFactory;
+
+/**
+ * Keeps one UCP connection pool per database, user and wallet alive between
+ * /simulator requests, so DATABASE mode pays the ATP TLS handshake once per
+ * pooled connection instead of once per statement.
+ */
+@ApplicationScoped
+public class DatabasePoolManager {
+    private static final Logger LOGGER = Logger.getLogger(DatabasePoolManager.class.getName());
+
+    private final ConcurrentHashMap<String, PoolDataSource> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger poolCounter = new AtomicInteger();
+
+    private volatile InventoryCatalog inventoryCatalog;
+
+    /**
+     * Returns the pool for the database config, creating it on first use. The pool
+     * sizes of an existing pool are updated to the requested ones.
+     *
+     * @param dbConfig the sim-config -> database values
+     * @return the shared {@link PoolDataSource}
+     * @throws SQLException if the pool cannot be set up
+     */
+    public PoolDataSource getPoolDataSource(DatabaseConfig dbConfig) throws SQLException {
+        PoolDataSource poolDataSource = pools.get(dbConfig.getPoolKey());
+        if (poolDataSource == null) {
+            synchronized (pools) {
+                poolDataSource = pools.get(dbConfig.getPoolKey());
+                if (poolDataSource == null) {
+                    poolDataSource = createPoolDataSource(dbConfig);
+                    pools.put(dbConfig.getPoolKey(), poolDataSource);
+                }
+            }
+        }
+        else {
+            resizePool(poolDataSource, dbConfig);
+        }
+        return poolDataSource;
+    }
+
+    /**
+     * Opens initial-pool-size connections before the simulation starts, so the first
+     * orders don't pay the connection setup.
+     *
+     * @param poolDataSource the pool to warm up
+     * @param connections number of connections to open
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void warmUp(PoolDataSource poolDataSource, int connections) throws SQLException {
+        List<Connection> borrowed = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                borrowed.add(poolDataSource.getConnection());
+            }
+        }
+        finally {
+            for (Connection conn : borrowed) {
+                conn.close();
+            }
+        }
+        LOGGER.info("Pool " + poolDataSource.getConnectionPoolName() + " warmed up. Available connections: "
+                    + poolDataSource.getAvailableConnectionsCount());
+    }
+
+    /**
+     * Returns the storage keys of the schema, loading them again only when the
+     * simulation targets a different schema than the previous one.
+     *
+     * @param dbConfig the sim-config -> database values
+     * @param poolDataSource the pool of the schema
+     * @return the {@link InventoryCatalog}
+     * @throws SQLException if the storage tables cannot be read
+     */
+    public InventoryCatalog getInventoryCatalog(DatabaseConfig dbConfig, PoolDataSource poolDataSource) throws SQLException {
+        InventoryCatalog catalog = inventoryCatalog;
+        if (catalog == null || !catalog.getSchemaKey().equals(dbConfig.getPoolKey())) {
+            catalog = InventoryCatalog.load(poolDataSource, dbConfig.getPoolKey());
+            inventoryCatalog = catalog;
+        }
+        return catalog;
+    }
+
+    private PoolDataSource createPoolDataSource(DatabaseConfig dbConfig) throws SQLException {
+        String poolName = "UCP_POOL_" + poolCounter.incrementAndGet();
+        LOGGER.info("Setting up pool data source " + poolName);
+        LOGGER.info("SQLDB_FACTORY:  " + dbConfig.getConnectionFactory());
+        LOGGER.info("SQLDB_URL:      " + dbConfig.getJdbcUrl());
+        LOGGER.info("SQLDB_USERNAME: " + dbConfig.getDbUser());
+        LOGGER.info("SQLDB_PASSWORD: " + "********");
+        LOGGER.info("SQLDB_KEYSTOREPASSWORD  : " + (dbConfig.getKeystorePassword().equals("")? "False" : "true"));
+        LOGGER.info("SQLDB_TRUSTSTOREPASSWORD: " + (dbConfig.getTruststorePassword().equals("")? "False" : "true"));
+
+        System.setProperty("oracle.jdbc.fanEnabled", "false");
+
+        // wallet settings are connection properties, so they don't change the global
+        // javax.net.ssl.* properties used by the microservice mode RestClient.
+        Properties connProps = new Properties();
+        if (!dbConfig.getClientCred().equals("")) {
+            connProps.setProperty("oracle.net.ssl_version", "1.2");
+            connProps.setProperty("oracle.net.tns_admin", dbConfig.getClientCred());
+            connProps.setProperty("javax.net.ssl.keyStore", dbConfig.getClientCred() + "/keystore.jks");
+            connProps.setProperty("javax.net.ssl.keyStorePassword", dbConfig.getKeystorePassword());
+            connProps.setProperty("javax.net.ssl.trustStore", dbConfig.getClientCred() + "/truststore.jks");
+            connProps.setProperty("javax.net.ssl.trustStorePassword", dbConfig.getTruststorePassword());
+        }
+
+        PoolDataSource poolDataSource = PoolDataSourceFactory.getPoolDataSource();
+        poolDataSource.setConnectionFactoryClassName(dbConfig.getConnectionFactory());
+        poolDataSource.setURL(dbConfig.getJdbcUrl());
+        poolDataSource.setUser(dbConfig.getDbUser());
+        poolDataSource.setPassword(dbConfig.getDbPassword());
+        poolDataSource.setConnectionProperties(connProps);
+        poolDataSource.setConnectionPoolName(poolName);
+        poolDataSource.setInitialPoolSize(dbConfig.getInitialPoolSize());
+        poolDataSource.setMinPoolSize(dbConfig.getMinPoolSize());
+        poolDataSource.setMaxPoolSize(dbConfig.getMaxPoolSize());
+        poolDataSource.setValidateConnectionOnBorrow(true);
+        // implicit statement cache: the prepareStatement of a cached SQL text doesn't
+        // go to the database again
+        poolDataSource.setMaxStatements(dbConfig.getStatementCacheSize());
+
+        LOGGER.info("Pool data source " + poolName + " setup. initial[" + dbConfig.getInitialPoolSize()
+                    + "] | min[" + dbConfig.getMinPoolSize() + "] | max[" + dbConfig.getMaxPoolSize() + "]"
+                    + " | statements[" + dbConfig.getStatementCacheSize() + "]");
+        return poolDataSource;
+    }
+
+    private void resizePool(PoolDataSource poolDataSource, DatabaseConfig dbConfig) throws SQLException {
+        if (poolDataSource.getMaxPoolSize() != dbConfig.getMaxPoolSize()
+                || poolDataSource.getMinPoolSize() != dbConfig.getMinPoolSize()) {
+            LOGGER.info("Resizing pool " + poolDataSource.getConnectionPoolName() + " min[" + dbConfig.getMinPoolSize()
+                        + "] | max[" + dbConfig.getMaxPoolSize() + "]");
+            // grow max first so min is never bigger than max
+            if (dbConfig.getMaxPoolSize() > poolDataSource.getMaxPoolSize()) {
+                poolDataSource.setMaxPoolSize(dbConfig.getMaxPoolSize());
+                poolDataSource.setMinPoolSize(dbConfig.getMinPoolSize());
+            }
+            else {
+                poolDataSource.setMinPoolSize(dbConfig.getMinPoolSize());
+                poolDataSource.setMaxPoolSize(dbConfig.getMaxPoolSize());
+            }
+        }
+        if (poolDataSource.getMaxStatements() != dbConfig.getStatementCacheSize()) {
+            LOGGER.info("Statement cache of pool " + poolDataSource.getConnectionPoolName() + " set to "
+                        + dbConfig.getStatementCacheSize());
+            poolDataSource.setMaxStatements(dbConfig.getStatementCacheSize());
+        }
+    }
+
+    @PreDestroy
+    void destroyPools() {
+        for (PoolDataSource poolDataSource : pools.values()) {
+            try {
+                LOGGER.info("Destroying pool " + poolDataSource.getConnectionPoolName());
+                UniversalConnectionPoolManager poolManager = UniversalConnectionPoolManagerImpl.getUniversalConnectionPoolManager();
+                poolManager.destroyConnectionPool(poolDataSource.getConnectionPoolName());
+            }
+            catch (Exception ex) {
+                LOGGER.log(Level.WARNING, "ERROR destroying pool " + poolDataSource.getConnectionPoolName() + " " + ex.getMessage());
+            }
+        }
+        pools.clear();
+    }
+}
@@ -0,0 +1,119 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+
+/**
+ * Values of one order of {@link OrderGenerator}, all of them as the JSON strings of
+ * the order and payment documents.
+ */
+final class GeneratedOrder {
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    static final String TAKEN_BY_EMPLOYEE = "sim001";
+    static final String CUSTOMER_ID       = "sim345";
+    static final String EMAIL             = "ivan.smith@sim-email.es";
+    static final String STREET            = "SimStreet";
+    static final String CITY              = "Madrid";
+
+    final String orderId;
+    final String dateTime;
+    final String status;
+    final String paymentMethod;
+    final String serviceSurvey;
+    final String totalPaid;
+    final String totalPrice;
+    final String originalPrice;
+    final String longitude;
+    final String latitude;
+    final String number;
+    final String door;
+    final String citycode;
+    final String baseType;
+    final String topping1;
+    final String topping2;
+    final String topping3;
+    final String telephone;
+
+    GeneratedOrder(String orderId, String dateTime, String status, String paymentMethod, String serviceSurvey,
+                   String totalPaid, String totalPrice, String originalPrice, String longitude, String latitude,
+                   String number, String door, String citycode, String baseType,
+                   String topping1, String topping2, String topping3, String telephone) {
+        this.orderId       = orderId;
+        this.dateTime      = dateTime;
+        this.status        = status;
+        this.paymentMethod = paymentMethod;
+        this.serviceSurvey = serviceSurvey;
+        this.totalPaid     = totalPaid;
+        this.totalPrice    = totalPrice;
+        this.originalPrice = originalPrice;
+        this.longitude     = longitude;
+        this.latitude      = latitude;
+        this.number        = number;
+        this.door          = door;
+        this.citycode      = citycode;
+        this.baseType      = baseType;
+        this.topping1      = topping1;
+        this.topping2      = topping2;
+        this.topping3      = topping3;
+        this.telephone     = telephone;
+    }
+
+    /**
+     * @return {"order": {...}, "payment": {...}}, the document of the simulator
+     */
+    JsonObject toJson() {
+        JsonObject payment = JSON.createObjectBuilder()
+            .add("paymentid", "p" + orderId)
+            .add("paymentTime", dateTime)
+            .add("orderId", orderId)
+            .add("paymentMethod", paymentMethod)
+            .add("serviceSurvey", serviceSurvey)
+            .add("totalPaid", totalPaid)
+            .add("customerId", CUSTOMER_ID)
+            .add("originalPrice", originalPrice)
+            .build();
+        JsonObject street = JSON.createObjectBuilder()
+            .add("name", STREET)
+            .add("long", longitude)
+            .add("lat", latitude)
+            .build();
+        JsonObject customerAddress = JSON.createObjectBuilder()
+            .add("street", street)
+            .add("number", number)
+            .add("door", door)
+            .add("email", EMAIL)
+            .add("citycode", citycode)
+            .add("city", CITY)
+            .build();
+        JsonObject pizzaOrdered = JSON.createObjectBuilder()
+            .add("baseType", baseType)
+            .add("topping1", topping1)
+            .add("topping2", topping2)
+            .add("topping3", topping3)
+            .build();
+        JsonObject customer = JSON.createObjectBuilder()
+            .add("customerId", JSON.createObjectBuilder()
+                .add("telephone", telephone)
+                .add("email", EMAIL))
+            .build();
+        JsonObject order = JSON.createObjectBuilder()
+            .add("dateTimeOrderTaken", dateTime)
+            .add("takenByEmployee", TAKEN_BY_EMPLOYEE)
+            .add("customer", customer)
+            .add("pizzaOrdered", pizzaOrdered)
+            .add("totalPrice", totalPrice)
+            .add("customerAdress", customerAddress)
+            .add("orderId", orderId)
+            .add("status", status)
+            .build();
+
+        return JSON.createObjectBuilder()
+                   .add("order", order)
+                   .add("payment", payment)
+                   .build();
+    }
+}
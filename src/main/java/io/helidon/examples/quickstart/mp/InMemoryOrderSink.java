@@ -0,0 +1,83 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * {@link OrderSink} without database: it counts the orders, the payments and the
+ * TOPPING_STORAGE/BASEPIZZA_STORAGE consumption they would add, so a DATABASE mode
+ * run measures the generator and the simulation threads alone.
+ *
+ * The counters are LongAdders, created up front for the catalog of {@link PizzaOrder},
+ * so the simulation threads never wait for each other.
+ */
+public class InMemoryOrderSink implements OrderSink {
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    private final LongAdder orders    = new LongAdder();
+    private final LongAdder payments  = new LongAdder();
+    private final LongAdder centsPaid = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> toppings   = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> basePizzas = new ConcurrentHashMap<>();
+
+    public InMemoryOrderSink() {
+        for (String size : PizzaOrder.SIZES) {
+            for (String base : PizzaOrder.BASES)
+                basePizzas.put(size + " " + base, new LongAdder());
+        }
+        for (String topping : PizzaOrder.TOPPINGS)
+            toppings.put(topping, new LongAdder());
+    }
+
+    @Override
+    public CompletionStage<String> write(GeneratedOrder order) {
+        counter(basePizzas, order.baseType).increment();
+        counter(toppings, order.topping1).increment();
+        counter(toppings, order.topping2).increment();
+        counter(toppings, order.topping3).increment();
+        orders.increment();
+        centsPaid.add(Math.round(Double.parseDouble(order.totalPaid) * 100));
+        payments.increment();
+        return CompletableFuture.completedFuture(order.orderId);
+    }
+
+    @Override
+    public void close() {
+        // nothing pending, the counters are up to date
+    }
+
+    /**
+     * @return the orders and payments stored and the consumption per topping and basepizza
+     */
+    @Override
+    public JsonObject toJson() {
+        return JSON.createObjectBuilder()
+                   .add("type", DatabaseConfig.MEMORY_SINK)
+                   .add("orders", orders.sum())
+                   .add("payments", payments.sum())
+                   .add("total-paid", centsPaid.sum() / 100.0)
+                   .add("topping-consumed", toJson(toppings))
+                   .add("basepizza-consumed", toJson(basePizzas))
+                   .build();
+    }
+
+    private static JsonObjectBuilder toJson(ConcurrentHashMap<String, LongAdder> counters) {
+        JsonObjectBuilder consumed = JSON.createObjectBuilder();
+        counters.forEach((key, counter) -> consumed.add(key, counter.sum()));
+        return consumed;
+    }
+
+    // a key out of the catalog gets its counter the first time it's seen
+    private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        return (counter != null) ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+}
@@ -0,0 +1,161 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Accumulates the TOPPING_STORAGE and BASEPIZZA_STORAGE consumption of the orders in
+ * memory and applies it every inventory-flush-ms with one batched update per table,
+ * instead of every thread updating the same few hot rows once per order.
+ *
+ * The remainder is flushed when the run ends, so the final totals are the same as
+ * with one update per order. A failed flush puts its deltas back for the next one.
+ */
+public class InventoryAggregator implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(InventoryAggregator.class.getName());
+
+    private final ConcurrentHashMap<String, LongAdder> toppings   = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> basePizzas = new ConcurrentHashMap<>();
+
+    private final DataSource dataSource;
+    private final InventoryCatalog catalog;
+    private final ScheduledExecutorService flusher;
+
+    public InventoryAggregator(DataSource dataSource, InventoryCatalog catalog, long flushMillis) {
+        this.dataSource = dataSource;
+        this.catalog    = catalog;
+        this.flusher    = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("InventoryAggregator started: flushMillis[" + flushMillis + "]");
+    }
+
+    /**
+     * Adds the three toppings and the base pizza of the order. Values without a
+     * storage row are not counted, as the per order update didn't change any row.
+     *
+     * @param order the generated order
+     */
+    public void add(GeneratedOrder order) {
+        addTopping(order.topping1);
+        addTopping(order.topping2);
+        addTopping(order.topping3);
+
+        String baseType = order.baseType;
+        if (catalog.containsBasePizza(baseType))
+            counter(basePizzas, baseType).increment();
+        else
+            LOGGER.log(Level.SEVERE, "ERROR basepizza [" + baseType + "] not found in BASEPIZZA_STORAGE");
+    }
+
+    private void addTopping(String topping) {
+        if (catalog.containsTopping(topping))
+            counter(toppings, topping).increment();
+        else
+            LOGGER.log(Level.SEVERE, "ERROR topping [" + topping + "] not found in TOPPING_STORAGE");
+    }
+
+    /**
+     * Stops the periodic flush and applies what is left.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+        flush();
+        if (hasPending(toppings) || hasPending(basePizzas))
+            LOGGER.log(Level.SEVERE, "ERROR inventory not flushed. toppings" + snapshotOf(toppings)
+                                     + " | basepizzas" + snapshotOf(basePizzas));
+    }
+
+    synchronized void flush() {
+        Map<String, Long> toppingDeltas   = drain(toppings);
+        Map<String, Long> basePizzaDeltas = drain(basePizzas);
+        if (toppingDeltas.isEmpty() && basePizzaDeltas.isEmpty())
+            return;
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement addToppings   = conn.prepareStatement(DatabaseClient.ADD_TOPPING_SQL);
+                 PreparedStatement addBasePizzas = conn.prepareStatement(DatabaseClient.ADD_BASEPIZZA_SQL)) {
+                for (Map.Entry<String, Long> delta : toppingDeltas.entrySet()) {
+                    addToppings.setLong  (1, delta.getValue());
+                    addToppings.setString(2, catalog.toppingKey(delta.getKey()));
+                    addToppings.addBatch();
+                }
+                for (Map.Entry<String, Long> delta : basePizzaDeltas.entrySet()) {
+                    addBasePizzas.setLong  (1, delta.getValue());
+                    addBasePizzas.setString(2, catalog.basePizzaKey(delta.getKey()));
+                    addBasePizzas.addBatch();
+                }
+                if (!toppingDeltas.isEmpty())
+                    addToppings.executeBatch();
+                if (!basePizzaDeltas.isEmpty())
+                    addBasePizzas.executeBatch();
+                conn.commit();
+                LOGGER.info("Inventory flushed. toppings" + toppingDeltas + " | basepizzas" + basePizzaDeltas);
+            }
+            catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR inventory flush " + ex.getMessage());
+            restore(toppings, toppingDeltas);
+            restore(basePizzas, basePizzaDeltas);
+        }
+    }
+
+    private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null)
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        return counter;
+    }
+
+    private static Map<String, Long> drain(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            long delta = counter.getValue().sumThenReset();
+            if (delta != 0)
+                deltas.put(counter.getKey(), delta);
+        }
+        return deltas;
+    }
+
+    private static void restore(ConcurrentHashMap<String, LongAdder> counters, Map<String, Long> deltas) {
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            counter(counters, delta.getKey()).add(delta.getValue());
+        }
+    }
+
+    private static boolean hasPending(ConcurrentHashMap<String, LongAdder> counters) {
+        for (LongAdder counter : counters.values()) {
+            if (counter.sum() != 0)
+                return true;
+        }
+        return false;
+    }
+
+    private static Map<String, Long> snapshotOf(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> snapshot = new HashMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+}
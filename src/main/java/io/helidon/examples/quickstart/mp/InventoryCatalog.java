@@ -0,0 +1,140 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Immutable map from the baseType and toppings generated by {@link PizzaOrder} to the
+ * primary keys of BASEPIZZA_STORAGE and TOPPING_STORAGE, loaded once per schema, so
+ * the storage updates are exact key lookups instead of a LIKE '%baseType' scan.
+ *
+ * A generated baseType matches the storage rows that end with it, like the old LIKE
+ * did. If several rows match, only the one that is equal to it is used.
+ */
+public final class InventoryCatalog {
+    private static final Logger LOGGER = Logger.getLogger(InventoryCatalog.class.getName());
+
+    private static final String SELECT_BASEPIZZAS_SQL = "SELECT basepizza FROM MICROSERVICE.BASEPIZZA_STORAGE";
+    private static final String SELECT_TOPPINGS_SQL   = "SELECT topping FROM MICROSERVICE.TOPPING_STORAGE";
+
+    private final String schemaKey;
+    private final Map<String, String> basePizzaKeys;
+    private final Map<String, String> toppingKeys;
+
+    private InventoryCatalog(String schemaKey, Map<String, String> basePizzaKeys, Map<String, String> toppingKeys) {
+        this.schemaKey     = schemaKey;
+        this.basePizzaKeys = Collections.unmodifiableMap(basePizzaKeys);
+        this.toppingKeys   = Collections.unmodifiableMap(toppingKeys);
+    }
+
+    /**
+     * Reads the storage keys and resolves the generator catalog against them.
+     *
+     * @param dataSource the connection pool of the schema
+     * @param schemaKey the schema the keys belong to
+     * @return the catalog
+     * @throws SQLException if the storage tables cannot be read
+     */
+    static InventoryCatalog load(DataSource dataSource, String schemaKey) throws SQLException {
+        List<String> storedBasePizzas;
+        List<String> storedToppings;
+        try (Connection conn = dataSource.getConnection()) {
+            storedBasePizzas = readKeys(conn, SELECT_BASEPIZZAS_SQL);
+            storedToppings   = readKeys(conn, SELECT_TOPPINGS_SQL);
+        }
+
+        Map<String, String> basePizzaKeys = new HashMap<>();
+        for (String size : PizzaOrder.SIZES) {
+            for (String base : PizzaOrder.BASES) {
+                String baseType = size + " " + base;
+                String key = resolveBasePizza(baseType, storedBasePizzas);
+                if (key != null)
+                    basePizzaKeys.put(baseType, key);
+            }
+        }
+        Map<String, String> toppingKeys = new HashMap<>();
+        for (String topping : PizzaOrder.TOPPINGS) {
+            if (storedToppings.contains(topping))
+                toppingKeys.put(topping, topping);
+            else
+                LOGGER.log(Level.WARNING, "Topping [" + topping + "] not found in TOPPING_STORAGE");
+        }
+
+        LOGGER.info("InventoryCatalog loaded for " + schemaKey + ": basepizzas[" + basePizzaKeys.size()
+                    + "] | toppings[" + toppingKeys.size() + "]");
+        return new InventoryCatalog(schemaKey, basePizzaKeys, toppingKeys);
+    }
+
+    String getSchemaKey() {
+        return schemaKey;
+    }
+
+    boolean containsBasePizza(String baseType) {
+        return basePizzaKeys.containsKey(baseType);
+    }
+
+    boolean containsTopping(String topping) {
+        return toppingKeys.containsKey(topping);
+    }
+
+    /**
+     * @param baseType a generated baseType
+     * @return the BASEPIZZA_STORAGE key
+     * @throws SQLException if the baseType has no storage row
+     */
+    String basePizzaKey(String baseType) throws SQLException {
+        String key = basePizzaKeys.get(baseType);
+        if (key == null)
+            throw new SQLException("basepizza [" + baseType + "] not found in BASEPIZZA_STORAGE");
+        return key;
+    }
+
+    /**
+     * @param topping a generated topping
+     * @return the TOPPING_STORAGE key
+     * @throws SQLException if the topping has no storage row
+     */
+    String toppingKey(String topping) throws SQLException {
+        String key = toppingKeys.get(topping);
+        if (key == null)
+            throw new SQLException("topping [" + topping + "] not found in TOPPING_STORAGE");
+        return key;
+    }
+
+    private static String resolveBasePizza(String baseType, List<String> storedBasePizzas) {
+        List<String> matches = new ArrayList<>();
+        for (String stored : storedBasePizzas) {
+            if (stored.equals(baseType))
+                return stored;
+            if (stored.endsWith(baseType))
+                matches.add(stored);
+        }
+        if (matches.size() == 1)
+            return matches.get(0);
+
+        LOGGER.log(Level.WARNING, "Basepizza [" + baseType + "] matches " + matches + " in BASEPIZZA_STORAGE");
+        return null;
+    }
+
+    private static List<String> readKeys(Connection conn, String selectSQL) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        try (PreparedStatement pstat = conn.prepareStatement(selectSQL);
+             ResultSet rs = pstat.executeQuery()) {
+            while (rs.next()) {
+                keys.add(rs.getString(1));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,113 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link OrderSink} on the MICROSERVICE.* tables of a JDBC database, the ATP schema
+ * with {@link SqlDialect#ORACLE} or an embedded database with {@link SqlDialect#STANDARD}.
+ *
+ * By default every order runs its four statements with auto-commit, each one on a
+ * connection borrowed from the pool. batch-size, commit-every and inventory-flush-ms
+ * of the sim-config hand the orders to {@link OrderBatchWriter}, {@link OrderUnitOfWork}
+ * and {@link InventoryAggregator}.
+ */
+public class JdbcOrderSink implements OrderSink {
+    private static final Logger LOGGER = Logger.getLogger(JdbcOrderSink.class.getName());
+
+    private static final int UNIT_OF_WORK_INVENTORY_FLUSH_MS = 1000;
+
+    private final DatabaseClient dbClient;
+    private final LatencyRecorder latency;
+    private final InventoryAggregator inventory;
+    private final OrderBatchWriter batchWriter;
+    private final OrderUnitOfWork unitOfWork;
+
+    /**
+     * @param dataSource the connection pool
+     * @param catalog the storage keys
+     * @param dbConfig the sim-config -> database values
+     * @param maxThreads max simulation threads
+     * @param latency records the statements of the orders written one by one
+     */
+    public JdbcOrderSink(DataSource dataSource, InventoryCatalog catalog, DatabaseConfig dbConfig,
+                         int maxThreads, LatencyRecorder latency) {
+        SqlDialect dialect = dbConfig.getDialect();
+        this.dbClient = new DatabaseClient(dataSource, catalog, dialect);
+        this.latency  = latency;
+        //inventory-flush-ms > 0: the storage updates are aggregated and applied every interval.
+        //commit-every > 0 aggregates them always: the open transactions would hold the locks of
+        //the same few storage rows, each one in its own order, and deadlock each other.
+        boolean unitOfWorkMode = dbConfig.getBatchSize() <= 1 && dbConfig.getCommitEvery() > 0;
+        int inventoryFlushMs   = (dbConfig.getInventoryFlushMs() == 0 && unitOfWorkMode)
+                                    ? UNIT_OF_WORK_INVENTORY_FLUSH_MS
+                                    : dbConfig.getInventoryFlushMs();
+        this.inventory = (inventoryFlushMs > 0)
+                            ? new InventoryAggregator(dataSource, catalog, inventoryFlushMs)
+                            : null;
+        //batch-size > 1: the tasks hand the orders to the batch writer instead of inserting them.
+        this.batchWriter = (dbConfig.getBatchSize() > 1)
+                            ? new OrderBatchWriter(dataSource, catalog, dialect, inventory, dbConfig.getBatchSize(), dbConfig.getBatchFlushMs())
+                            : null;
+        //commit-every > 0: the four statements of the orders run in shared transactions.
+        //An idle transaction keeps its row locks until a thread takes it again, and the
+        //threads are shared with other runs: it is also committed after batch-flush-ms.
+        this.unitOfWork = unitOfWorkMode
+                            ? new OrderUnitOfWork(dataSource, catalog, dialect, inventory, dbConfig.getCommitEvery(),
+                                                  Math.min(maxThreads, dbConfig.getMaxPoolSize()), dbConfig.getBatchFlushMs())
+                            : null;
+    }
+
+    @Override
+    public CompletionStage<String> write(GeneratedOrder order) throws Exception {
+        if (batchWriter != null)
+            return batchWriter.submit(order);
+        if (unitOfWork != null)
+            return unitOfWork.write(order);
+
+        //the statements return an ERROR... result on failure: the order is reported as false
+        long startNanos = System.nanoTime();
+        if (failed(dbClient.executeInsertOrder(order)))
+            return CompletableFuture.completedFuture("false");
+        latency.record(LatencyRecorder.INSERT_ORDER, startNanos);
+        startNanos = System.nanoTime();
+        if (failed(dbClient.executeInsertPayment(order)))
+            return CompletableFuture.completedFuture("false");
+        latency.record(LatencyRecorder.INSERT_PAYMENT, startNanos);
+        if (inventory != null) {
+            inventory.add(order);
+        }
+        else {
+            startNanos = System.nanoTime();
+            if (failed(dbClient.executeUpdateIngredients(order)))
+                return CompletableFuture.completedFuture("false");
+            latency.record(LatencyRecorder.UPDATE_TOPPINGS, startNanos);
+            startNanos = System.nanoTime();
+            if (failed(dbClient.executeUpdateBasePizza(order)))
+                return CompletableFuture.completedFuture("false");
+            latency.record(LatencyRecorder.UPDATE_BASEPIZZA, startNanos);
+        }
+        return CompletableFuture.completedFuture(order.orderId);
+    }
+
+    private static boolean failed(String dbresult) {
+        LOGGER.info(dbresult);
+        return dbresult.startsWith("ERROR");
+    }
+
+    /**
+     * Flushes the batch writer, the open transactions and the inventory of the run.
+     */
+    @Override
+    public void close() throws Exception {
+        if (batchWriter != null)
+            batchWriter.close();
+        if (unitOfWork != null)
+            unitOfWork.close();
+        if (inventory != null)
+            inventory.close();
+    }
+}
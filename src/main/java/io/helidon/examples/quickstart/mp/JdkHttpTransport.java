@@ -0,0 +1,142 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ * {@link OrchestratorTransport} on the JDK HttpClient. The calls are sent async, over
+ * one multiplexed HTTP/2 connection when the orchestrator offers it (ALPN for https,
+ * upgrade for http) and over pooled HTTP/1.1 connections when it doesn't, see
+ * jdk.httpclient.connectionPoolSize in {@link OrchestratorClientManager}.
+ *
+ * The request bodies go as they are, and the orderId of the createOrder response is
+ * read with a streaming parser that stops at resJSONDB.orderId, without building the
+ * JSON object of the response.
+ */
+public class JdkHttpTransport implements OrchestratorTransport, AutoCloseable {
+    private static final JsonParserFactory PARSER = Json.createParserFactory(Collections.emptyMap());
+
+    private final HttpClient httpClient;
+    private final URI versionURI;
+    private final URI createOrderURI;
+    private final URI changeStatusURI;
+    private final Duration respTimeout;
+
+    /**
+     * @param baseURL the orchestrator URL
+     * @param connTimeout connection timeout in ms
+     * @param respTimeout response timeout in ms
+     * @param version HTTP_2 to try HTTP/2 first, HTTP_1_1 to never use it
+     * @param executor runs the response handlers
+     */
+    public JdkHttpTransport(String baseURL, int connTimeout, int respTimeout, HttpClient.Version version, Executor executor) {
+        String base          = baseURL.endsWith("/") ? baseURL.substring(0, baseURL.length() - 1) : baseURL;
+        this.versionURI      = URI.create(base + "/version");
+        this.createOrderURI  = URI.create(base + "/createOrder");
+        this.changeStatusURI = URI.create(base + "/changeStatus");
+        this.respTimeout     = Duration.ofMillis(respTimeout);
+        this.httpClient      = HttpClient.newBuilder()
+                                         .version(version)
+                                         .connectTimeout(Duration.ofMillis(connTimeout))
+                                         .executor(executor)
+                                         .build();
+    }
+
+    @Override
+    public String version() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(versionURI)
+                                         .timeout(respTimeout)
+                                         .header("Accept", "application/json")
+                                         .GET()
+                                         .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        checkStatus(response);
+        return response.body() + " (" + response.version() + ")";
+    }
+
+    @Override
+    public CompletionStage<String> createOrder(byte[] order) {
+        return httpClient.sendAsync(jsonRequest(createOrderURI, "POST", order), HttpResponse.BodyHandlers.ofByteArray())
+                         .thenApply(response -> {
+                             checkStatus(response);
+                             return readOrderId(response.body());
+                         });
+    }
+
+    @Override
+    public CompletionStage<Void> changeStatus(byte[] update) {
+        return httpClient.sendAsync(jsonRequest(changeStatusURI, "PUT", update), HttpResponse.BodyHandlers.discarding())
+                         .thenAccept(JdkHttpTransport::checkStatus);
+    }
+
+    private HttpRequest jsonRequest(URI uri, String method, byte[] body) {
+        return HttpRequest.newBuilder(uri)
+                          .timeout(respTimeout)
+                          .header("Content-Type", "application/json")
+                          .header("Accept", "application/json")
+                          .method(method, HttpRequest.BodyPublishers.ofByteArray(body))
+                          .build();
+    }
+
+    private static void checkStatus(HttpResponse<?> response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300)
+            throw new IllegalStateException("HTTP " + response.statusCode() + " from " + response.uri());
+    }
+
+    /**
+     * @param body createOrder response
+     * @return resJSONDB.orderId as JSON text
+     */
+    static String readOrderId(byte[] body) {
+        try (JsonParser parser = PARSER.createParser(new ByteArrayInputStream(body))) {
+            int depth = 0;
+            boolean inResJSONDB = false;
+            String key = null;
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT:
+                    case START_ARRAY:
+                        if (inResJSONDB && depth == 2 && "orderId".equals(key))
+                            return parser.getValue().toString();
+                        depth++;
+                        if (depth == 2 && "resJSONDB".equals(key) && event == JsonParser.Event.START_OBJECT)
+                            inResJSONDB = true;
+                        key = null;
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        depth--;
+                        if (depth < 2)
+                            inResJSONDB = false;
+                        break;
+                    case KEY_NAME:
+                        key = parser.getString();
+                        break;
+                    default:
+                        if (inResJSONDB && depth == 2 && "orderId".equals(key))
+                            return parser.getValue().toString();
+                        key = null;
+                }
+            }
+        }
+        throw new IllegalStateException("resJSONDB.orderId not found in the createOrder response");
+    }
+
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.json.JsonObject;
+
+/**
+ * Response time of the {@link MockOrchestratorResource}, from a sim-config like section:
+ *
+ * {"type": "fixed", "ms": 10}
+ * {"type": "uniform", "min-ms": 5, "max-ms": 20}
+ * {"type": "log-normal", "median-ms": 10, "sigma": 0.5}
+ * {"type": "bimodal", "slow-ratio": 0.05, "fast": {...}, "slow": {...}}
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * @return the next latency in ms, never negative
+     */
+    public abstract double nextMillis();
+
+    /**
+     * @param distributionObj the distribution section
+     * @return the distribution
+     * @throws IllegalArgumentException if the type or a value is not valid
+     */
+    public static LatencyDistribution of(JsonObject distributionObj) {
+        String type = ConfigValues.stringValue(distributionObj, "type", "fixed");
+        switch (type) {
+            case "fixed":
+                return fixed(nonNegative(distributionObj, "ms", 0));
+            case "uniform":
+                double minMs = nonNegative(distributionObj, "min-ms", 0);
+                double maxMs = nonNegative(distributionObj, "max-ms", minMs);
+                if (maxMs < minMs)
+                    throw new IllegalArgumentException("latency.max-ms -> can't be lower than min-ms");
+                return new LatencyDistribution() {
+                    @Override
+                    public double nextMillis() {
+                        return (maxMs == minMs) ? minMs : ThreadLocalRandom.current().nextDouble(minMs, maxMs);
+                    }
+                };
+            case "log-normal":
+                double medianMs = nonNegative(distributionObj, "median-ms", 10);
+                double sigma    = nonNegative(distributionObj, "sigma", 0.5);
+                return new LatencyDistribution() {
+                    @Override
+                    public double nextMillis() {
+                        return medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+                    }
+                };
+            case "bimodal":
+                double slowRatio = ConfigValues.doubleValue(distributionObj, "slow-ratio", 0.05);
+                if (slowRatio < 0 || slowRatio > 1)
+                    throw new IllegalArgumentException("latency.slow-ratio -> must be between 0 and 1");
+                if (!distributionObj.containsKey("fast") || !distributionObj.containsKey("slow"))
+                    throw new IllegalArgumentException("latency -> bimodal needs fast and slow distributions");
+                LatencyDistribution fast = of(distributionObj.getJsonObject("fast"));
+                LatencyDistribution slow = of(distributionObj.getJsonObject("slow"));
+                return new LatencyDistribution() {
+                    @Override
+                    public double nextMillis() {
+                        return (ThreadLocalRandom.current().nextDouble() < slowRatio) ? slow.nextMillis() : fast.nextMillis();
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("latency.type -> " + type + " not valid, use fixed, uniform, log-normal or bimodal");
+        }
+    }
+
+    /**
+     * @param ms the latency of every call
+     * @return a constant distribution
+     */
+    public static LatencyDistribution fixed(double ms) {
+        return new LatencyDistribution() {
+            @Override
+            public double nextMillis() {
+                return ms;
+            }
+        };
+    }
+
+    private static double nonNegative(JsonObject distributionObj, String key, double defaultValue) {
+        double value = ConfigValues.doubleValue(distributionObj, key, defaultValue);
+        if (value < 0)
+            throw new IllegalArgumentException("latency." + key + " -> can't be negative");
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms of a simulation, one per operation (generate, create-order,
+ * end-to-end...). Each platform thread records into its own histograms, with no lock
+ * nor shared counter, and they are merged when the run has ended. Virtual threads run
+ * a single order each, so they record into a shared wait-free ConcurrentHistogram
+ * instead of allocating histograms per order.
+ *
+ * Values are recorded in microseconds with 2 significant digits.
+ */
+public class LatencyRecorder {
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    public static final String GENERATE         = "generate";
+    public static final String CREATE_ORDER     = "create-order";
+    public static final String CHANGE_STATUS    = "change-status";
+    public static final String INSERT_ORDER     = "insert-order";
+    public static final String INSERT_PAYMENT   = "insert-payment";
+    public static final String UPDATE_TOPPINGS  = "update-toppings";
+    public static final String UPDATE_BASEPIZZA = "update-basepizza";
+    public static final String END_TO_END       = "end-to-end";
+
+    private final ThreadLocal<Map<String, Histogram>> threadHistograms = ThreadLocal.withInitial(this::register);
+    private final Queue<Map<String, Histogram>> allThreadHistograms  = new ConcurrentLinkedQueue<>();
+    private final Map<String, Histogram> sharedHistograms            = new ConcurrentHashMap<>();
+
+    private Map<String, Histogram> register() {
+        Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+        allThreadHistograms.add(histograms);
+        return histograms;
+    }
+
+    /**
+     * @param operation the operation name
+     * @param startNanos System.nanoTime() at the start of the operation
+     */
+    public void record(String operation, long startNanos) {
+        recordNanos(operation, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param operation the operation name
+     * @param latencyNanos duration of the operation
+     */
+    public void recordNanos(String operation, long latencyNanos) {
+        Histogram histogram = Thread.currentThread().isVirtual()
+                ? sharedHistograms.computeIfAbsent(operation, op -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+                : threadHistograms.get().computeIfAbsent(operation, op -> new Histogram(SIGNIFICANT_DIGITS));
+        histogram.recordValue(Math.max(0, latencyNanos / 1000));
+    }
+
+    /**
+     * Merges the histograms of every thread. Only call it when the run has ended.
+     *
+     * @param elapsedMillis run time, for the operations per second
+     * @return percentiles in milliseconds of each operation
+     */
+    public JsonObject toJson(long elapsedMillis) {
+        Map<String, Histogram> merged = new TreeMap<>();
+        for (Map<String, Histogram> histograms : allThreadHistograms) {
+            histograms.forEach((operation, histogram) -> add(merged, operation, histogram));
+        }
+        sharedHistograms.forEach((operation, histogram) -> add(merged, operation, histogram));
+
+        JsonObjectBuilder latency = JSON.createObjectBuilder();
+        merged.forEach((operation, histogram) -> latency.add(operation, toJson(histogram, elapsedMillis)));
+        return latency.build();
+    }
+
+    private static void add(Map<String, Histogram> merged, String operation, Histogram histogram) {
+        merged.computeIfAbsent(operation, op -> new Histogram(SIGNIFICANT_DIGITS)).add(histogram);
+    }
+
+    private static JsonObject toJson(Histogram histogram, long elapsedMillis) {
+        long count = histogram.getTotalCount();
+        return JSON.createObjectBuilder()
+                   .add("count", count)
+                   .add("per-second", (elapsedMillis == 0) ? 0 : count * 1000 / elapsedMillis)
+                   .add("p50-ms", millis(histogram.getValueAtPercentile(50)))
+                   .add("p90-ms", millis(histogram.getValueAtPercentile(90)))
+                   .add("p99-ms", millis(histogram.getValueAtPercentile(99)))
+                   .add("p99.9-ms", millis(histogram.getValueAtPercentile(99.9)))
+                   .add("max-ms", millis(histogram.getMaxValue()))
+                   .build();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,129 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+/**
+ * Values of the sim-config -> profile section: the traffic shape of an open-loop run,
+ * inline or from a JSON file of the profilesDir directory with "file". The shape is
+ * either a list of rate segments or an hourly-orders curve of 24 values, both in
+ * simulated time, and it is replayed time-compression times faster: a day of traffic
+ * with time-compression 60 runs in 24 minutes, with 60 times the orders per second.
+ *
+ * segments: [{"seconds": 1800, "orders-per-second": 2}, {"seconds": 3600, "start-rate": 2, "end-rate": 8}]
+ * hourly-orders: orders per hour at the start of each hour, linear between them.
+ *
+ * "file" is a name relative to profilesDir and can't leave it. Without profilesDir
+ * only inline profiles are accepted. The errors of the file are logged, not returned.
+ */
+public class LoadProfile {
+    private static final Logger LOGGER = Logger.getLogger(LoadProfile.class.getName());
+    private static final int HOURS_PER_DAY = 24;
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    private final double timeCompression;
+    private final RateSchedule schedule;
+
+    /**
+     * @param profileObj the profile section
+     * @param profilesDir the directory of the profile files, null if they are not allowed
+     */
+    public LoadProfile(JsonObject profileObj, Path profilesDir) {
+        JsonObject profile = profileObj.containsKey("file")
+                                ? readFile(profilesDir, ConfigValues.stringValue(profileObj, "file", ""))
+                                : profileObj;
+
+        this.timeCompression = ConfigValues.doubleValue(profile, "time-compression", 1);
+        if (timeCompression <= 0)
+            throw new IllegalArgumentException("profile.time-compression -> must be greater than 0");
+
+        if (profile.containsKey("segments"))
+            this.schedule = compileSegments(profile.getJsonArray("segments"));
+        else if (profile.containsKey("hourly-orders"))
+            this.schedule = compileHourlyOrders(profile.getJsonArray("hourly-orders"),
+                                                ConfigValues.intValue(profile, "start-hour", 0),
+                                                ConfigValues.intValue(profile, "hours", HOURS_PER_DAY));
+        else
+            throw new IllegalArgumentException("profile -> segments or hourly-orders required");
+    }
+
+    private static JsonObject readFile(Path profilesDir, String file) {
+        if (profilesDir == null)
+            throw new IllegalArgumentException("profile.file -> profile files not enabled, set profilesDir");
+        try {
+            Path dir  = profilesDir.toRealPath();
+            Path path = dir.resolve(file).normalize();
+            // checked again after the links are followed
+            if (!path.startsWith(dir) || !path.toRealPath().startsWith(dir))
+                throw new IllegalArgumentException("profile.file -> must be a file of profilesDir");
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                 JsonReader jsonReader = Json.createReader(reader)) {
+                return jsonReader.readObject();
+            }
+        }
+        catch (IOException | JsonException | InvalidPathException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR profile file [" + file + "] " + ex.getMessage());
+            throw new IllegalArgumentException("profile.file -> not found or not a valid profile");
+        }
+    }
+
+    private RateSchedule compileSegments(JsonArray segments) {
+        RateSchedule.Builder builder = new RateSchedule.Builder();
+        for (int i = 0; i < segments.size(); i++) {
+            JsonObject segment = segments.getJsonObject(i);
+            double seconds     = ConfigValues.doubleValue(segment, "seconds", 0);
+            double rate        = ConfigValues.doubleValue(segment, "orders-per-second", 0);
+            double startRate   = ConfigValues.doubleValue(segment, "start-rate", rate);
+            double endRate     = ConfigValues.doubleValue(segment, "end-rate", startRate);
+            if (seconds <= 0)
+                throw new IllegalArgumentException("profile.segments[" + i + "].seconds -> must be greater than 0");
+            if (startRate < 0 || endRate < 0)
+                throw new IllegalArgumentException("profile.segments[" + i + "] -> rates can't be negative");
+            builder.segment(seconds / timeCompression, startRate * timeCompression, endRate * timeCompression);
+        }
+        return builder.build();
+    }
+
+    private RateSchedule compileHourlyOrders(JsonArray hourlyOrders, int startHour, int hours) {
+        if (hourlyOrders.size() != HOURS_PER_DAY)
+            throw new IllegalArgumentException("profile.hourly-orders -> 24 values required");
+        if (startHour < 0 || startHour >= HOURS_PER_DAY || hours <= 0)
+            throw new IllegalArgumentException("profile.start-hour, profile.hours -> out of range");
+
+        RateSchedule.Builder builder = new RateSchedule.Builder();
+        for (int hour = startHour; hour < startHour + hours; hour++) {
+            double startRate = hourlyOrders.getJsonNumber(hour % HOURS_PER_DAY).doubleValue() / SECONDS_PER_HOUR;
+            double endRate   = hourlyOrders.getJsonNumber((hour + 1) % HOURS_PER_DAY).doubleValue() / SECONDS_PER_HOUR;
+            if (startRate < 0 || endRate < 0)
+                throw new IllegalArgumentException("profile.hourly-orders -> can't be negative");
+            builder.segment(SECONDS_PER_HOUR / timeCompression, startRate * timeCompression, endRate * timeCompression);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the profile compiled to real time
+     */
+    RateSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * @return simulated seconds per real second
+     */
+    double getTimeCompression() {
+        return timeCompression;
+    }
+}
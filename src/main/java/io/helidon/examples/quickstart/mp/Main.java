@@ -20,7 +20,11 @@ package io.helidon.examples.quickstart.mp;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.logging.Level;
 import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import javax.enterprise.inject.spi.CDI;
 
 import io.helidon.microprofile.server.Server;
 
@@ -46,7 +50,18 @@ public final class Main {
 
         // start the server
         Server server = startServer();
-        
+
+        // let the running simulations finish before the JVM exits
+        SimulatorExecutor simulatorExecutor = CDI.current().select(SimulatorExecutor.class).get();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                simulatorExecutor.shutdown();
+            }
+            catch (RuntimeException ex) {
+                Logger.getLogger(Main.class.getName()).log(Level.WARNING, "ERROR executor shutdown " + ex.getMessage());
+            }
+        }, "simulator-shutdown"));
+
         System.out.println("Server started at: http://"+server.host()+":" + server.port() + "/simulator");
     }
 
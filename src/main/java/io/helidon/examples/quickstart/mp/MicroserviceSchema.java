@@ -0,0 +1,80 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the MICROSERVICE.* tables and PAYMENT_SEQ in an empty embedded database, for
+ * the "jdbc" sink with "init-schema": true, and adds the BASEPIZZA_STORAGE and
+ * TOPPING_STORAGE rows of the catalog of {@link PizzaOrder}.
+ *
+ * It can run on every simulation: what already exists is left as it is.
+ */
+final class MicroserviceSchema {
+    private static final Logger LOGGER = Logger.getLogger(MicroserviceSchema.class.getName());
+
+    private static final String[] CREATE_SQL = {
+        "CREATE SCHEMA MICROSERVICE",
+        "CREATE TABLE MICROSERVICE.PIZZAORDER (ID VARCHAR(64) PRIMARY KEY, DATA VARCHAR(4000), TIMESTAMP BIGINT)",
+        "CREATE TABLE MICROSERVICE.PAYMENTS (PAYMENTCODE BIGINT PRIMARY KEY, ORDERID VARCHAR(64), PAYMENTTIME TIMESTAMP,"
+            + " PAYMENTMETHOD VARCHAR(32), ORIGINALPRICE REAL, TOTALPAID REAL, CUSTOMERID VARCHAR(64))",
+        "CREATE TABLE MICROSERVICE.TOPPING_STORAGE (TOPPING VARCHAR(64) PRIMARY KEY, CONSUMED BIGINT)",
+        "CREATE TABLE MICROSERVICE.BASEPIZZA_STORAGE (BASEPIZZA VARCHAR(64) PRIMARY KEY, CONSUMED BIGINT)",
+        "CREATE SEQUENCE MICROSERVICE.PAYMENT_SEQ START WITH 1"
+    };
+    private static final String INSERT_TOPPING_SQL   = "INSERT INTO MICROSERVICE.TOPPING_STORAGE (TOPPING,CONSUMED) VALUES (?,0)";
+    private static final String INSERT_BASEPIZZA_SQL = "INSERT INTO MICROSERVICE.BASEPIZZA_STORAGE (BASEPIZZA,CONSUMED) VALUES (?,0)";
+
+    private MicroserviceSchema() {
+    }
+
+    /**
+     * @param dataSource the connection pool of the database
+     * @throws SQLException if no connection can be opened
+     */
+    static void create(DataSource dataSource) throws SQLException {
+        int created = 0;
+        int rows    = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            try (Statement stat = conn.createStatement()) {
+                for (String sql : CREATE_SQL) {
+                    try {
+                        stat.execute(sql);
+                        created++;
+                    }
+                    catch (SQLException ex) {
+                        LOGGER.log(Level.FINE, "Not created, already there? " + sql + " " + ex.getMessage());
+                    }
+                }
+            }
+            try (PreparedStatement insertTopping = conn.prepareStatement(INSERT_TOPPING_SQL);
+                 PreparedStatement insertBasePizza = conn.prepareStatement(INSERT_BASEPIZZA_SQL)) {
+                for (String topping : PizzaOrder.TOPPINGS)
+                    rows += insertIfMissing(insertTopping, topping);
+                for (String size : PizzaOrder.SIZES) {
+                    for (String base : PizzaOrder.BASES)
+                        rows += insertIfMissing(insertBasePizza, size + " " + base);
+                }
+            }
+        }
+        LOGGER.info("MICROSERVICE schema initialized: objects created[" + created + "] | storage rows added[" + rows + "]");
+    }
+
+    private static int insertIfMissing(PreparedStatement pstat, String key) {
+        try {
+            pstat.setString(1, key);
+            return pstat.executeUpdate();
+        }
+        catch (SQLException ex) {
+            // the row is already there
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * In-process stand-in of the orchestrator, the {@link OrderService} contract under
+ * /mock-orchestrator, to run MICROSERVICE mode simulations without the real one:
+ * "url": "http://localhost:9001/mock-orchestrator".
+ *
+ * createOrder and changeStatus answer after a latency of the configured
+ * {@link LatencyDistribution}, without holding a server thread while they wait. A
+ * call fails with 500 with probability error-rate and with probability timeout-rate
+ * it answers 504 only after timeout-ms, longer than the response-timeout of the
+ * simulation. The orders answered with 200 are kept in memory, up to store-limit; a
+ * failed call stores or changes nothing.
+ *
+ * It has no authentication, so it is only served with mockOrchestratorEnabled=true.
+ *
+ * The behavior is changed with PUT /mock-orchestrator/config:
+ * {"latency": {"type": "log-normal", "median-ms": 20, "sigma": 0.4}, "error-rate": 0.01,
+ *  "timeout-rate": 0.001, "timeout-ms": 30000, "store-limit": 100000}
+ */
+@Path("/mock-orchestrator")
+@ApplicationScoped
+public class MockOrchestratorResource {
+    private static final Logger LOGGER           = Logger.getLogger(MockOrchestratorResource.class.getName());
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    private final ConcurrentHashMap<Long, MockOrder> orders = new ConcurrentHashMap<>();
+    private final AtomicLong lastOrderId = new AtomicLong();
+    private final LongAdder calls    = new LongAdder();
+    private final LongAdder errors   = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile Behavior behavior = new Behavior(JsonValue.EMPTY_JSON_OBJECT);
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(2, task -> {
+            Thread thread = new Thread(task, "mock-orchestrator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @GET
+    @Path("/version")
+    @Produces(MediaType.APPLICATION_JSON)
+    public JsonObject version() {
+        return JSON.createObjectBuilder().add("version", "mock-orchestrator").build();
+    }
+
+    @GET
+    @Path("/getAllOrders")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAllOrders() {
+        JsonArrayBuilder allOrders = JSON.createArrayBuilder();
+        orders.forEach((orderId, order) -> allOrders.add(JSON.createObjectBuilder()
+                                                             .add("orderId", orderId)
+                                                             .add("status", order.status)
+                                                             .add("order", order.order)));
+        return Response.ok(allOrders.build()).build();
+    }
+
+    @POST
+    @Path("/createOrder")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void createOrder(JsonObject pizzaOrder, @Suspended AsyncResponse response) {
+        Behavior current = behavior;
+        long orderId     = lastOrderId.incrementAndGet();
+        JsonObject order = pizzaOrder.containsKey("order") ? pizzaOrder.getJsonObject("order") : pizzaOrder;
+        String status    = ConfigValues.stringValue(order, "status", "");
+        answer(current, response, () -> {
+            if (orders.size() < current.storeLimit)
+                orders.put(orderId, new MockOrder(order, status));
+            return Response.ok(result(orderId, status)).build();
+        });
+    }
+
+    @PUT
+    @Path("/changeStatus")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void changeStatus(JsonObject update, @Suspended AsyncResponse response) {
+        Behavior current = behavior;
+        long orderId     = orderId(update.get("orderId"));
+        String status    = ConfigValues.stringValue(update, "status", "");
+        if (orderId <= 0 || orderId > lastOrderId.get()) {
+            response.resume(Response.status(Response.Status.NOT_FOUND)
+                                    .entity(JSON.createObjectBuilder().add("error", "order not found").build())
+                                    .build());
+            return;
+        }
+        answer(current, response, () -> {
+            MockOrder order = orders.get(orderId);
+            if (order != null)
+                order.status = status;
+            return Response.ok(result(orderId, status)).build();
+        });
+    }
+
+    /**
+     * @return the behavior and the calls answered since the last reset
+     */
+    @GET
+    @Path("/config")
+    @Produces(MediaType.APPLICATION_JSON)
+    public JsonObject getConfig() {
+        return JSON.createObjectBuilder()
+                   .add("config", behavior.config)
+                   .add("calls", calls.sum())
+                   .add("errors", errors.sum())
+                   .add("timeouts", timeouts.sum())
+                   .add("stored-orders", orders.size())
+                   .build();
+    }
+
+    /**
+     * Replaces the behavior, the values not sent go back to their defaults.
+     */
+    @PUT
+    @Path("/config")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response setConfig(JsonObject config) {
+        try {
+            behavior = new Behavior(config);
+            LOGGER.info("Mock orchestrator config: " + config);
+            return Response.ok(getConfig()).build();
+        }
+        catch (RuntimeException ex) {
+            JsonObject entity = JSON.createObjectBuilder().add("error", "problem with json config")
+                                                          .add("error-mess", String.valueOf(ex.getMessage())).build();
+            return Response.status(Response.Status.BAD_REQUEST).entity(entity).build();
+        }
+    }
+
+    /**
+     * Drops the stored orders and the counters.
+     */
+    @DELETE
+    @Path("/orders")
+    public Response reset() {
+        orders.clear();
+        calls.reset();
+        errors.reset();
+        timeouts.reset();
+        return Response.noContent().build();
+    }
+
+    private void answer(Behavior current, AsyncResponse response, Supplier<Response> ok) {
+        calls.increment();
+        double outcome = ThreadLocalRandom.current().nextDouble();
+        if (outcome < current.timeoutRate) {
+            timeouts.increment();
+            resume(response, current.timeoutMs, () -> Response.status(Response.Status.GATEWAY_TIMEOUT).build());
+        }
+        else if (outcome < current.timeoutRate + current.errorRate) {
+            errors.increment();
+            resume(response, current.latency.nextMillis(),
+                   () -> Response.serverError().entity(JSON.createObjectBuilder().add("error", "injected error").build()).build());
+        }
+        else {
+            resume(response, current.latency.nextMillis(), ok);
+        }
+    }
+
+    private void resume(AsyncResponse response, double delayMs, Supplier<Response> answer) {
+        long delayMicros = (long) (delayMs * 1000);
+        if (delayMicros <= 0)
+            response.resume(answer.get());
+        else
+            scheduler.schedule(() -> response.resume(answer.get()), delayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private static JsonObject result(long orderId, String status) {
+        return JSON.createObjectBuilder()
+                   .add("resJSONDB", JSON.createObjectBuilder()
+                                         .add("orderId", orderId)
+                                         .add("status", status))
+                   .build();
+    }
+
+    private static long orderId(JsonValue orderId) {
+        try {
+            if (orderId instanceof JsonNumber)
+                return ((JsonNumber) orderId).longValue();
+            if (orderId instanceof JsonString)
+                return Long.parseLong(((JsonString) orderId).getString());
+        }
+        catch (NumberFormatException ex) {
+            // not an orderId of the mock
+        }
+        return -1;
+    }
+
+    private static class MockOrder {
+        private final JsonObject order;
+        private volatile String status;
+
+        MockOrder(JsonObject order, String status) {
+            this.order  = order;
+            this.status = status;
+        }
+    }
+
+    private static class Behavior {
+        private final JsonObject config;
+        private final LatencyDistribution latency;
+        private final double errorRate;
+        private final double timeoutRate;
+        private final double timeoutMs;
+        private final int storeLimit;
+
+        Behavior(JsonObject config) {
+            this.config      = config;
+            this.latency     = config.containsKey("latency") ? LatencyDistribution.of(config.getJsonObject("latency"))
+                                                             : LatencyDistribution.fixed(0);
+            this.errorRate   = ConfigValues.doubleValue(config, "error-rate", 0);
+            this.timeoutRate = ConfigValues.doubleValue(config, "timeout-rate", 0);
+            this.timeoutMs   = ConfigValues.doubleValue(config, "timeout-ms", 30000);
+            this.storeLimit  = ConfigValues.intValue(config, "store-limit", 100000);
+            if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1)
+                throw new IllegalArgumentException("error-rate, timeout-rate -> must be between 0 and 1, together at most 1");
+            if (timeoutMs < 0 || storeLimit < 0)
+                throw new IllegalArgumentException("timeout-ms, store-limit -> can't be negative");
+        }
+    }
+}
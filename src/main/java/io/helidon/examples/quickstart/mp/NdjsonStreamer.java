@@ -0,0 +1,133 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes the result of a simulation as NDJSON while it runs: one line per completed
+ * order and a last line with the summary, or the error, of the run.
+ *
+ * The task threads only queue the lines. The response thread writes them and flushes
+ * every time the queue is empty, so each chunk goes out as soon as it's available.
+ */
+public class NdjsonStreamer implements StreamingOutput {
+    private static final Logger LOGGER = Logger.getLogger(NdjsonStreamer.class.getName());
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final MediaType NDJSON_TYPE = MediaType.valueOf(NDJSON);
+
+    private final BlockingQueue<String> lines;
+    private final PizzaOrder pizzaOrder;
+    private final Callable<Response> simulation;
+
+    private volatile boolean clientGone = false;
+
+    /**
+     * @param pizzaOrder the simulation, its results are sent to this streamer
+     * @param simulation the createOrders call of the pizzaOrder
+     * @param bufferedLines lines waiting to be written before the tasks wait for the client
+     */
+    public NdjsonStreamer(PizzaOrder pizzaOrder, Callable<Response> simulation, int bufferedLines) {
+        this.lines      = new ArrayBlockingQueue<>(bufferedLines);
+        this.pizzaOrder = pizzaOrder;
+        this.simulation = simulation;
+        pizzaOrder.setResultListener(this::queueLine);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        CompletableFuture<Response> run = new CompletableFuture<>();
+        Thread runner = new Thread(() -> {
+            try {
+                run.complete(simulation.call());
+            }
+            catch (Exception ex) {
+                run.completeExceptionally(ex);
+            }
+        }, "ndjson-run-" + THREAD_NUMBER.incrementAndGet());
+        runner.setDaemon(true);
+        runner.start();
+
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        try {
+            while (!run.isDone() || !lines.isEmpty()) {
+                String line = lines.poll(100, TimeUnit.MILLISECONDS);
+                if (line != null) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+                if (lines.isEmpty())
+                    writer.flush();
+            }
+            writer.write(lastLine(run).toString());
+            writer.write('\n');
+            writer.flush();
+        }
+        catch (IOException ex) {
+            // the client closed the connection, nobody is reading the rest of the run
+            LOGGER.log(Level.WARNING, "NDJSON client gone, cancelling the simulation: " + ex.getMessage());
+            clientGone = true;
+            pizzaOrder.cancel();
+            lines.clear();
+            throw ex;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            clientGone = true;
+            pizzaOrder.cancel();
+            throw new IOException("Interrupted streaming the simulation", ex);
+        }
+    }
+
+    private void queueLine(long index, String orderId, long latencyNanos) {
+        String line = JSON.createObjectBuilder()
+                          .add("index", index)
+                          .add("orderId", orderId)
+                          .add("status", orderId.equals("false") ? "failed"
+                                         : orderId.equals(RunStats.FAST_FAIL) ? RunStats.FAST_FAIL : "created")
+                          .add("latency-ms", latencyNanos / 1_000_000.0)
+                          .build()
+                          .toString();
+        try {
+            while (!clientGone && !lines.offer(line, 100, TimeUnit.MILLISECONDS)) {
+                // wait for the response thread
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "ERROR NDJSON line of order " + index + " lost");
+        }
+    }
+
+    private JsonObject lastLine(CompletableFuture<Response> run) throws InterruptedException {
+        try {
+            return (JsonObject) run.get().getEntity();
+        }
+        catch (ExecutionException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR NDJSON simulation " + ex.getCause().getMessage());
+            return JSON.createObjectBuilder().add("error", String.valueOf(ex.getCause().getMessage())).build();
+        }
+    }
+}
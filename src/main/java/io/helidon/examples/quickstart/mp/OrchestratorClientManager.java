@@ -0,0 +1,217 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+
+/**
+ * Keeps one RestClient per orchestrator URL and timeouts alive between /simulator
+ * requests, so back-to-back MICROSERVICE mode runs reuse the client and its
+ * kept-alive connections instead of building a client and opening new connections
+ * on every request.
+ *
+ * The RestClient sends its calls with HttpURLConnection, which keeps the idle
+ * connections of each host and port in the JDK keep-alive cache. It is sized at
+ * startup with http.maxConnections, orchestratorMaxConnections or maxThreads by
+ * default, so every simulator thread finds a kept-alive connection. The same size
+ * applies to the HTTP/1.1 connection pool of the {@link JdkHttpTransport} with
+ * jdk.httpclient.connectionPoolSize. A -D on the command line wins over the config.
+ *
+ * A client is checked with a version() call the first time it is used and again when
+ * its last check is older than orchestratorHealthCheckSeconds.
+ *
+ * The URLs come from the requests, so at most orchestratorMaxClients clients of each
+ * kind are kept and the least recently used one is dropped to make room. A dropped
+ * client is not closed, as a run may still be using it: it is released with its last
+ * reference.
+ */
+@ApplicationScoped
+public class OrchestratorClientManager {
+    private static final Logger LOGGER = Logger.getLogger(OrchestratorClientManager.class.getName());
+
+    @Inject
+    @ConfigProperty(name="maxThreads", defaultValue="20")
+    private int maxThreads;
+
+    @Inject
+    @ConfigProperty(name="orchestratorMaxConnections", defaultValue="0")
+    private int maxConnections;
+
+    @Inject
+    @ConfigProperty(name="orchestratorHealthCheckSeconds", defaultValue="60")
+    private int healthCheckSeconds;
+
+    @Inject
+    @ConfigProperty(name="orchestratorMaxClients", defaultValue="16")
+    private int maxClients;
+
+    @Inject
+    private SimulatorExecutor simulatorExecutor;
+
+    private ClientCache<OrderService> clients;
+    private ClientCache<JdkHttpTransport> transports;
+
+    @PostConstruct
+    void init() {
+        clients    = new ClientCache<>(maxClients);
+        transports = new ClientCache<>(maxClients);
+        // read once by the JDK, before the first HTTP connection
+        System.setProperty("http.keepAlive", System.getProperty("http.keepAlive", "true"));
+        String connections = String.valueOf((maxConnections > 0) ? maxConnections : maxThreads);
+        System.setProperty("http.maxConnections", System.getProperty("http.maxConnections", connections));
+        System.setProperty("jdk.httpclient.connectionPoolSize", System.getProperty("jdk.httpclient.connectionPoolSize", connections));
+        LOGGER.info("Orchestrator connections: keepAlive[" + System.getProperty("http.keepAlive")
+                    + "] | maxConnections per route[" + System.getProperty("http.maxConnections")
+                    + "] | jdk.httpclient.connectionPoolSize[" + System.getProperty("jdk.httpclient.connectionPoolSize") + "]");
+    }
+
+    /**
+     * Creates the manager at startup, so its @PostConstruct sets the keep-alive
+     * properties before any RestClient is built.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        LOGGER.info("Orchestrator client cache ready");
+    }
+
+    /**
+     * Returns the client of the orchestrator, building it on first use.
+     *
+     * @param baseURL the orchestrator URL
+     * @param connTimeout connection timeout in ms
+     * @param respTimeout response timeout in ms
+     * @return the shared {@link OrderService} client
+     * @throws Exception if the orchestrator doesn't answer the health check
+     */
+    public OrderService getClient(String baseURL, int connTimeout, int respTimeout) throws Exception {
+        String key = baseURL + "|" + connTimeout + "|" + respTimeout;
+        CachedClient<OrderService> client = cached(clients, key, () -> createClient(baseURL, connTimeout, respTimeout));
+        client.checkHealth(TimeUnit.SECONDS.toNanos(healthCheckSeconds));
+        return client.client;
+    }
+
+    /**
+     * Returns the JDK HttpClient transport of the orchestrator, building it on first use.
+     *
+     * @param baseURL the orchestrator URL
+     * @param connTimeout connection timeout in ms
+     * @param respTimeout response timeout in ms
+     * @param httpVersion HTTP_2 or HTTP_1_1
+     * @return the shared {@link JdkHttpTransport}
+     * @throws Exception if the orchestrator doesn't answer the health check
+     */
+    public OrchestratorTransport getTransport(String baseURL, int connTimeout, int respTimeout, String httpVersion) throws Exception {
+        HttpClient.Version version = HttpClient.Version.valueOf(httpVersion);
+        String key = baseURL + "|" + connTimeout + "|" + respTimeout + "|" + version;
+        CachedClient<JdkHttpTransport> transport = cached(transports, key, () -> {
+            LOGGER.info("Creating JdkHttpTransport. base URL: " + baseURL + " | connectTimeout[" + connTimeout
+                        + "] | readTimeout[" + respTimeout + "] | version[" + version + "]");
+            JdkHttpTransport jdkHttpTransport = new JdkHttpTransport(baseURL, connTimeout, respTimeout, version,
+                                                                     simulatorExecutor.getClientExecutor());
+            return new CachedClient<>(baseURL, jdkHttpTransport, jdkHttpTransport::version);
+        });
+        transport.checkHealth(TimeUnit.SECONDS.toNanos(healthCheckSeconds));
+        return transport.client;
+    }
+
+    private CachedClient<OrderService> createClient(String baseURL, int connTimeout, int respTimeout) {
+        LOGGER.info("Creating RestClient. base URL: " + baseURL + " | connectTimeout[" + connTimeout
+                    + "] | readTimeout[" + respTimeout + "]");
+        OrderService orderService = RestClientBuilder.newBuilder().baseUri(URI.create(baseURL))
+                                                     .connectTimeout(connTimeout, TimeUnit.MILLISECONDS)
+                                                     .readTimeout(respTimeout, TimeUnit.MILLISECONDS)
+                                                     .executorService(simulatorExecutor.getClientExecutor())
+                                                     .build(OrderService.class);
+        return new CachedClient<>(baseURL, orderService, orderService::version);
+    }
+
+    private static <T> CachedClient<T> cached(ClientCache<T> cache, String key, Supplier<CachedClient<T>> create) {
+        synchronized (cache) {
+            CachedClient<T> client = cache.get(key);
+            if (client == null) {
+                client = create.get();
+                cache.put(key, client);
+            }
+            return client;
+        }
+    }
+
+    @PreDestroy
+    void closeClients() {
+        closeAll(clients);
+        closeAll(transports);
+    }
+
+    private static void closeAll(ClientCache<?> cache) {
+        synchronized (cache) {
+            cache.values().forEach(CachedClient::close);
+            cache.clear();
+        }
+    }
+
+    // clients by URL and timeouts, in access order, the least recently used dropped past maxClients
+    private static class ClientCache<T> extends LinkedHashMap<String, CachedClient<T>> {
+        private final int maxClients;
+
+        ClientCache(int maxClients) {
+            super(16, 0.75f, true);
+            this.maxClients = maxClients;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedClient<T>> eldest) {
+            if (size() <= maxClients)
+                return false;
+            LOGGER.info("Orchestrator client of " + eldest.getValue().baseURL + " dropped, least recently used");
+            return true;
+        }
+    }
+
+    private static class CachedClient<T> {
+        private final String baseURL;
+        private final T client;
+        private final Callable<Object> version;
+        // System.nanoTime() of the last good version() call, 0 before the first one
+        private volatile long checkedNanos = 0;
+
+        CachedClient(String baseURL, T client, Callable<Object> version) {
+            this.baseURL = baseURL;
+            this.client  = client;
+            this.version = version;
+        }
+
+        void checkHealth(long intervalNanos) throws Exception {
+            long now = System.nanoTime();
+            if (checkedNanos != 0 && now - checkedNanos < intervalNanos)
+                return;
+
+            LOGGER.info("Orchestrator " + baseURL + " version: " + version.call());
+            checkedNanos = now;
+        }
+
+        void close() {
+            try {
+                if (client instanceof AutoCloseable)
+                    ((AutoCloseable) client).close();
+            }
+            catch (Exception ex) {
+                LOGGER.log(Level.WARNING, "ERROR closing client " + baseURL + " " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+
+/**
+ * Bulkhead and circuit breaker around the orchestrator calls of a MICROSERVICE mode
+ * run, with the parameters of MicroProfile Fault Tolerance, from the sim-config ->
+ * microservice -> fault-tolerance section:
+ *
+ * bulkhead: at most max-concurrent-calls calls at the same time, a call waits
+ * max-wait-ms for a free slot.
+ * circuit-breaker: it opens when failure-ratio of the last request-volume-threshold
+ * calls failed, rejects the calls for delay-ms, then goes half-open: it lets through
+ * only the success-threshold trial calls it still needs, closes when they succeed and
+ * opens again when one of them fails. The results of calls sent before it opened
+ * don't count as trials.
+ *
+ * A rejected call fails fast with {@link RejectedCallException}. A rejected createOrder
+ * reports its order as {@link RunStats#FAST_FAIL}, not as a failed order; a rejected
+ * changeStatus fails an order that is already in the orchestrator.
+ */
+public class OrchestratorGuard {
+    private static final Logger LOGGER = Logger.getLogger(OrchestratorGuard.class.getName());
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // round of a call sent while the circuit was closed, not a half-open trial
+    private static final int NOT_TRIAL = -1;
+    private static final int REJECTED  = -2;
+
+    /**
+     * A call not sent, because the bulkhead was full or the circuit open.
+     */
+    public static class RejectedCallException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RejectedCallException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // bulkhead, null when there is no bulkhead section
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+
+    // circuit breaker, disabled when there is no circuit-breaker section
+    private final boolean circuitBreaker;
+    private final int requestVolumeThreshold;
+    private final double failureRatio;
+    private final long delayNanos;
+    private final int successThreshold;
+
+    // rolling window of the last requestVolumeThreshold results, true for a failure
+    private final boolean[] results;
+    private int resultCount;
+    private int resultIndex;
+    private int failureCount;
+    private State state = State.CLOSED;
+    private long openedNanos;
+    private int halfOpenRound;
+    private int halfOpenTrials;
+    private int halfOpenSuccesses;
+    private int timesOpened;
+
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder circuitRejected  = new LongAdder();
+
+    public OrchestratorGuard(JsonObject faultToleranceObj) {
+        JsonObject bulkheadObj = faultToleranceObj.getJsonObject("bulkhead");
+        JsonObject circuitObj  = faultToleranceObj.getJsonObject("circuit-breaker");
+
+        this.maxConcurrentCalls = (bulkheadObj == null) ? 0 : ConfigValues.intValue(bulkheadObj, "max-concurrent-calls", 10);
+        this.maxWaitNanos       = (bulkheadObj == null) ? 0
+                : TimeUnit.MILLISECONDS.toNanos(ConfigValues.intValue(bulkheadObj, "max-wait-ms", 0));
+        if (bulkheadObj != null && (maxConcurrentCalls <= 0 || maxWaitNanos < 0))
+            throw new IllegalArgumentException("fault-tolerance.bulkhead -> max-concurrent-calls > 0, max-wait-ms >= 0");
+        this.bulkhead = (bulkheadObj == null) ? null : new Semaphore(maxConcurrentCalls);
+
+        this.circuitBreaker         = circuitObj != null;
+        this.requestVolumeThreshold = circuitBreaker ? ConfigValues.intValue(circuitObj, "request-volume-threshold", 20) : 1;
+        this.failureRatio           = circuitBreaker ? ConfigValues.doubleValue(circuitObj, "failure-ratio", 0.5) : 1;
+        this.delayNanos             = circuitBreaker
+                ? TimeUnit.MILLISECONDS.toNanos(ConfigValues.intValue(circuitObj, "delay-ms", 5000)) : 0;
+        this.successThreshold       = circuitBreaker ? ConfigValues.intValue(circuitObj, "success-threshold", 1) : 1;
+        if (requestVolumeThreshold <= 0 || successThreshold <= 0 || delayNanos < 0)
+            throw new IllegalArgumentException("fault-tolerance.circuit-breaker -> request-volume-threshold, success-threshold > 0, delay-ms >= 0");
+        if (failureRatio <= 0 || failureRatio > 1)
+            throw new IllegalArgumentException("fault-tolerance.circuit-breaker.failure-ratio -> must be between 0 and 1");
+        this.results = new boolean[requestVolumeThreshold];
+    }
+
+    /**
+     * Runs a blocking call under the bulkhead and the circuit breaker.
+     *
+     * @param call the orchestrator call
+     * @return the result of the call
+     * @throws RejectedCallException if the call is not sent
+     * @throws Exception the error of the call
+     */
+    public <T> T call(Callable<T> call) throws Exception {
+        int round = acquire();
+        boolean failed = true;
+        try {
+            T result = call.call();
+            failed = false;
+            return result;
+        }
+        finally {
+            release(failed, round);
+        }
+    }
+
+    /**
+     * Sends an async call under the bulkhead and the circuit breaker. The bulkhead
+     * slot is held until the call completes.
+     *
+     * @param call the orchestrator call
+     * @return the stage of the call, completed with {@link RejectedCallException} if it is not sent
+     */
+    public <T> CompletionStage<T> callAsync(Supplier<CompletionStage<T>> call) {
+        int round;
+        try {
+            round = acquire();
+        }
+        catch (RejectedCallException ex) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(ex);
+            return rejected;
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = call.get();
+        }
+        catch (RuntimeException ex) {
+            release(true, round);
+            throw ex;
+        }
+        return stage.whenComplete((result, error) -> release(error != null, round));
+    }
+
+    /**
+     * @param error the error of an order, maybe wrapped by a stage
+     * @return true if the order was not sent because a call was rejected
+     */
+    public static boolean isRejected(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null)
+            error = error.getCause();
+        return error instanceof RejectedCallException;
+    }
+
+    /**
+     * @return the half-open round of a trial call, NOT_TRIAL otherwise
+     */
+    private int acquire() {
+        int round = NOT_TRIAL;
+        if (circuitBreaker) {
+            round = allowCall();
+            if (round == REJECTED) {
+                circuitRejected.increment();
+                throw new RejectedCallException("Circuit breaker open");
+            }
+        }
+        if (bulkhead != null) {
+            boolean acquired;
+            try {
+                acquired = (maxWaitNanos == 0) ? bulkhead.tryAcquire() : bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                if (circuitBreaker)
+                    cancelTrial(round);
+                bulkheadRejected.increment();
+                throw new RejectedCallException("Bulkhead full: " + maxConcurrentCalls + " calls");
+            }
+        }
+        return round;
+    }
+
+    private void release(boolean failed, int round) {
+        if (bulkhead != null)
+            bulkhead.release();
+        if (circuitBreaker)
+            recordResult(failed, round);
+    }
+
+    private synchronized int allowCall() {
+        if (state == State.CLOSED)
+            return NOT_TRIAL;
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedNanos < delayNanos)
+                return REJECTED;
+            LOGGER.info("Circuit breaker half-open");
+            state = State.HALF_OPEN;
+            halfOpenRound++;
+            halfOpenTrials    = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (halfOpenTrials + halfOpenSuccesses >= successThreshold)
+            return REJECTED;
+        halfOpenTrials++;
+        return halfOpenRound;
+    }
+
+    // a trial call not sent after all, the bulkhead was full
+    private synchronized void cancelTrial(int round) {
+        if (round == halfOpenRound && state == State.HALF_OPEN)
+            halfOpenTrials--;
+    }
+
+    private synchronized void recordResult(boolean failed, int round) {
+        if (round != NOT_TRIAL) {
+            // a trial of an older half-open round is over already
+            if (round != halfOpenRound || state != State.HALF_OPEN)
+                return;
+            halfOpenTrials--;
+            if (failed)
+                open();
+            else if (++halfOpenSuccesses >= successThreshold) {
+                LOGGER.info("Circuit breaker closed");
+                state = State.CLOSED;
+                resultCount = resultIndex = failureCount = 0;
+            }
+            return;
+        }
+        if (state != State.CLOSED)
+            return;
+
+        if (resultCount == requestVolumeThreshold && results[resultIndex])
+            failureCount--;
+        results[resultIndex] = failed;
+        if (failed)
+            failureCount++;
+        resultIndex = (resultIndex + 1) % requestVolumeThreshold;
+        resultCount = Math.min(resultCount + 1, requestVolumeThreshold);
+        if (resultCount == requestVolumeThreshold && failureCount >= failureRatio * requestVolumeThreshold)
+            open();
+    }
+
+    private void open() {
+        LOGGER.info("Circuit breaker open for " + TimeUnit.NANOSECONDS.toMillis(delayNanos) + " ms");
+        state       = State.OPEN;
+        openedNanos = System.nanoTime();
+        timesOpened++;
+    }
+
+    /**
+     * @return the rejected calls and the circuit breaker state
+     */
+    public synchronized JsonObject toJson() {
+        return JSON.createObjectBuilder()
+                   .add("bulkhead-rejected", bulkheadRejected.sum())
+                   .add("circuit-rejected", circuitRejected.sum())
+                   .add("circuit-opened", timesOpened)
+                   .add("circuit-state", state.name().toLowerCase().replace('_', '-'))
+                   .build();
+    }
+}
@@ -0,0 +1,29 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Sends the orchestrator calls of the MICROSERVICE mode with the request bodies
+ * already serialized, the alternative to the JAX-RS {@link OrderService} client,
+ * chosen with the microservice "transport" of the sim-config.
+ */
+public interface OrchestratorTransport {
+    /**
+     * @return the /version response body
+     * @throws Exception if the orchestrator doesn't answer
+     */
+    String version() throws Exception;
+
+    /**
+     * @param order the JSON pizza order
+     * @return stage completed with resJSONDB.orderId as JSON text, like the JsonValue of
+     *         the RestClient, or completed exceptionally if the call failed
+     */
+    CompletionStage<String> createOrder(byte[] order);
+
+    /**
+     * @param update the JSON orderId and status
+     * @return stage completed when the orchestrator has answered the call
+     */
+    CompletionStage<Void> changeStatus(byte[] update);
+}
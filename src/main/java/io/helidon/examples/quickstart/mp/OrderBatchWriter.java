@@ -0,0 +1,282 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * DATABASE mode sink that groups the orders generated by the simulation threads
+ * into JDBC batches. A batch is sent when batch-size orders are queued or when
+ * batch-flush-ms passes since its first order, whatever happens first.
+ *
+ * Every order keeps its own future, completed with the orderId when its rows are
+ * committed or with "false" when they fail, so the /simulator response still maps
+ * each order to its result.
+ */
+public class OrderBatchWriter implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(OrderBatchWriter.class.getName());
+
+    private final DataSource dataSource;
+    private final InventoryCatalog catalog;
+    private final SqlDialect dialect;
+    private final InventoryAggregator inventory;
+    private final int batchSize;
+    private final long flushNanos;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Thread writerThread;
+
+    private volatile boolean closed     = false;
+    private volatile boolean writerDone = false;
+
+    private Connection conn;
+    private PreparedStatement insertOrder;
+    private PreparedStatement insertPayment;
+    private PreparedStatement updateToppings;
+    private PreparedStatement updateBasePizza;
+
+    /**
+     * @param dataSource the connection pool
+     * @param catalog the storage keys
+     * @param dialect the SQL of the database
+     * @param inventory if not null, the storage updates of the committed orders go to it
+     * @param batchSize orders per batch
+     * @param flushMillis max wait to fill a batch
+     */
+    public OrderBatchWriter(DataSource dataSource, InventoryCatalog catalog, SqlDialect dialect, InventoryAggregator inventory,
+                            int batchSize, long flushMillis) {
+        this.dataSource = dataSource;
+        this.catalog    = catalog;
+        this.dialect    = dialect;
+        this.inventory  = inventory;
+        this.batchSize  = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        // bounded, so the simulation threads wait for the writer instead of piling up orders
+        this.queue      = new ArrayBlockingQueue<>(batchSize * 4);
+
+        this.writerThread = new Thread(this::writeLoop, "order-batch-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        LOGGER.info("OrderBatchWriter started: batchSize[" + batchSize + "] | flushMillis[" + flushMillis + "]");
+    }
+
+    /**
+     * Queues an order and its payment for the next batch. While the queue is full it
+     * waits for the writer, but not once it is closed or gone.
+     *
+     * @param order the generated order
+     * @return future completed with the orderId or "false"
+     * @throws InterruptedException if interrupted while the queue is full
+     */
+    public CompletableFuture<String> submit(GeneratedOrder order) throws InterruptedException {
+        if (closed)
+            throw new IllegalStateException("OrderBatchWriter closed");
+
+        PendingOrder pending = new PendingOrder(order);
+        while (!queue.offer(pending, 100, TimeUnit.MILLISECONDS)) {
+            if (closed || writerDone)
+                throw new IllegalStateException("OrderBatchWriter closed");
+        }
+        // queued after the writer took its last orders: nobody else will complete it
+        if (writerDone && queue.remove(pending))
+            pending.result.complete("false");
+        return pending.result;
+    }
+
+    /**
+     * Flushes the queued orders and releases the connection.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        writerThread.join();
+    }
+
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    PendingOrder next = (wait > 0) ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "ERROR OrderBatchWriter interrupted");
+        }
+        finally {
+            // interrupted or died: the orders not written yet fail instead of waiting forever
+            writerDone = true;
+            for (PendingOrder pending : batch) {
+                pending.result.complete("false");
+            }
+            PendingOrder pending;
+            while ((pending = queue.poll()) != null) {
+                pending.result.complete("false");
+            }
+            closeConnection();
+        }
+    }
+
+    private void writeBatch(List<PendingOrder> batch) {
+        try {
+            prepareStatements();
+            for (PendingOrder pending : batch) {
+                bindOrder(pending);
+                insertOrder.addBatch();
+                insertPayment.addBatch();
+                if (inventory == null) {
+                    updateToppings.addBatch();
+                    updateBasePizza.addBatch();
+                }
+            }
+            int failedRow = Math.min(firstFailedRow(insertOrder.executeBatch()),
+                                     firstFailedRow(insertPayment.executeBatch()));
+            if (inventory == null) {
+                failedRow = Math.min(failedRow,
+                            Math.min(firstFailedRow(updateToppings.executeBatch()),
+                                     firstFailedRow(updateBasePizza.executeBatch())));
+            }
+            if (failedRow == Integer.MAX_VALUE) {
+                conn.commit();
+                for (PendingOrder pending : batch) {
+                    committed(pending);
+                }
+                LOGGER.info("Batch of " + batch.size() + " orders inserted OK!");
+                return;
+            }
+            LOGGER.log(Level.SEVERE, "ERROR IN DB BATCH orderId[" + batch.get(failedRow).orderId + "] result <= 0");
+        }
+        catch (BatchUpdateException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR IN DB BATCH after " + ex.getUpdateCounts().length + " rows: " + ex.getMessage());
+        }
+        catch (SQLException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR IN DB BATCH " + ex.getMessage());
+        }
+
+        // a row failed: nothing of the batch is kept and every order is written on its
+        // own, so only the failing orders are reported as "false".
+        rollback();
+        for (PendingOrder pending : batch) {
+            pending.result.complete(writeRow(pending));
+        }
+    }
+
+    private void committed(PendingOrder pending) {
+        if (inventory != null)
+            inventory.add(pending.order);
+        pending.result.complete(pending.orderId);
+    }
+
+    private String writeRow(PendingOrder pending) {
+        try {
+            prepareStatements();
+            bindOrder(pending);
+            if (insertOrder.executeUpdate() > 0 && insertPayment.executeUpdate() > 0
+                    && (inventory != null || (updateToppings.executeUpdate() > 0 && updateBasePizza.executeUpdate() > 0))) {
+                conn.commit();
+                if (inventory != null)
+                    inventory.add(pending.order);
+                return pending.orderId;
+            }
+            LOGGER.log(Level.SEVERE, "ERROR IN DB INSERT orderId[" + pending.orderId + "] result <= 0");
+        }
+        catch (SQLException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR [" + pending.orderId + "] " + ex.getMessage());
+        }
+        rollback();
+        return "false";
+    }
+
+    private void bindOrder(PendingOrder pending) throws SQLException {
+        DatabaseClient.bindInsertOrder(insertOrder, pending.order, System.currentTimeMillis());
+        DatabaseClient.bindInsertPayment(insertPayment, dialect, pending.order);
+        if (inventory == null) {
+            DatabaseClient.bindUpdateToppings(updateToppings, catalog, pending.order);
+            DatabaseClient.bindUpdateBasePizza(updateBasePizza, catalog, pending.order);
+        }
+    }
+
+    private static int firstFailedRow(int[] updateCounts) {
+        for (int row = 0; row < updateCounts.length; row++) {
+            // SUCCESS_NO_INFO (-2) is a valid result for batched statements
+            if (updateCounts[row] == 0 || updateCounts[row] == PreparedStatement.EXECUTE_FAILED)
+                return row;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private void prepareStatements() throws SQLException {
+        if (conn != null && !conn.isClosed())
+            return;
+
+        conn = dataSource.getConnection();
+        conn.setAutoCommit(false);
+        insertOrder     = conn.prepareStatement(DatabaseClient.INSERT_ORDER_SQL);
+        insertPayment   = conn.prepareStatement(dialect.getInsertPaymentSql());
+        updateToppings  = conn.prepareStatement(DatabaseClient.UPDATE_TOPPINGS_SQL);
+        updateBasePizza = conn.prepareStatement(DatabaseClient.UPDATE_BASEPIZZA_SQL);
+    }
+
+    private void rollback() {
+        try {
+            if (conn != null) {
+                insertOrder.clearBatch();
+                insertPayment.clearBatch();
+                updateToppings.clearBatch();
+                updateBasePizza.clearBatch();
+                conn.rollback();
+            }
+        }
+        catch (SQLException ex) {
+            // broken connection, a new one is borrowed for the next batch
+            LOGGER.log(Level.SEVERE, "ERROR rollback batch " + ex.getMessage());
+            closeConnection();
+        }
+    }
+
+    private void closeConnection() {
+        try {
+            if (conn != null)
+                conn.close();
+        }
+        catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR close batch connection " + ex.getMessage());
+        }
+        conn = null;
+    }
+
+    private static class PendingOrder {
+        private final GeneratedOrder order;
+        private final String orderId;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        PendingOrder(GeneratedOrder order) {
+            this.order   = order;
+            this.orderId = order.orderId;
+        }
+    }
+}
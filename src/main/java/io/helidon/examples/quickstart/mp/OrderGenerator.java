@@ -0,0 +1,151 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Random values of the generated pizza orders, for any number of simulation threads
+ * at the same time without locks: ThreadLocalRandom for the numbers, the catalog and
+ * the short numbers as static String tables, and the date part of orderId and
+ * dateTimeOrderTaken formatted with java.time once per second, in a ring of immutable
+ * slots shared by all the threads, so a fresh virtual thread per order reuses it too.
+ *
+ * The dates are local time of the JVM with a literal 'Z', like they always were.
+ * orderId is the local second followed by a sequence of the {@link OrderIdAllocator},
+ * the bean of the application once it started.
+ */
+final class OrderGenerator {
+    // baseType is "<size> <base>", every size with every base
+    static final String[] BASE_TYPES;
+    static final String[] PAYMENT_METHODS = { "AMEX", "MASTERCARD", "VISA", "CASH" };
+
+    private static final int MAX_TABLE_NUMBER = 100;
+    private static final String[] NUMBERS     = new String[MAX_TABLE_NUMBER];
+    private static final String[] PRICES      = new String[MAX_TABLE_NUMBER];
+
+    private static final DateTimeFormatter DATE_TIME     = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter ORDER_ID_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ZoneRules ZONE_RULES            = ZoneId.systemDefault().getRules();
+
+    private static final int SECOND_SLOTS = 64;
+    private static final AtomicReferenceArray<SecondSlot> SECOND_SLOT = new AtomicReferenceArray<>(SECOND_SLOTS);
+
+    private static volatile OrderIdAllocator orderIds = new OrderIdAllocator("");
+
+    static {
+        BASE_TYPES = new String[PizzaOrder.SIZES.length * PizzaOrder.BASES.length];
+        for (int size = 0; size < PizzaOrder.SIZES.length; size++) {
+            for (int base = 0; base < PizzaOrder.BASES.length; base++)
+                BASE_TYPES[size * PizzaOrder.BASES.length + base] = PizzaOrder.SIZES[size] + " " + PizzaOrder.BASES[base];
+        }
+        for (int i = 0; i < MAX_TABLE_NUMBER; i++) {
+            NUMBERS[i] = Integer.toString(i);
+            PRICES[i]  = i + "$";
+        }
+    }
+
+    private OrderGenerator() {
+    }
+
+    /**
+     * @param allocator the allocator of the orderIds from now on
+     */
+    static void setOrderIdAllocator(OrderIdAllocator allocator) {
+        orderIds = allocator;
+    }
+
+    /**
+     * @param epochMillis time of the order
+     * @param pizzaStatus status of the order
+     * @return a new random order
+     */
+    static GeneratedOrder generate(long epochMillis, String pizzaStatus) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SecondSlot slot = secondSlot(Math.floorDiv(epochMillis, 1000L));
+        int millis      = (int) Math.floorMod(epochMillis, 1000L);
+
+        int topping1 = random.nextInt(PizzaOrder.TOPPINGS.length);
+        int topping2 = nthUnused(random.nextInt(PizzaOrder.TOPPINGS.length - 1), 1 << topping1);
+        int topping3 = nthUnused(random.nextInt(PizzaOrder.TOPPINGS.length - 2), (1 << topping1) | (1 << topping2));
+        int totalPrice = random.nextInt(10, 20);
+
+        return new GeneratedOrder(orderIds.nextOrderId(slot.localSecond, slot.orderIdPrefix),
+                                  dateTimeZ(slot.dateTime, millis),
+                                  pizzaStatus,
+                                  PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)],
+                                  number(random.nextInt(1, 6)),
+                                  number(totalPrice),
+                                  PRICES[totalPrice],
+                                  number(totalPrice + random.nextInt(0, 3)),
+                                  "-3." + random.nextInt(607759, 811779),
+                                  "40." + random.nextInt(385053, 551042),
+                                  number(random.nextInt(1, 100)),
+                                  number(random.nextInt(1, 5)),
+                                  Integer.toString(random.nextInt(28001, 28039)),
+                                  BASE_TYPES[random.nextInt(BASE_TYPES.length)],
+                                  PizzaOrder.TOPPINGS[topping1],
+                                  PizzaOrder.TOPPINGS[topping2],
+                                  PizzaOrder.TOPPINGS[topping3],
+                                  Integer.toString(random.nextInt(601000000, 678000000)));
+    }
+
+    /**
+     * Three different toppings in random order, like taking them one by one out of
+     * the list: the n-th topping whose bit is not set in used.
+     */
+    private static int nthUnused(int n, int used) {
+        for (int topping = 0; ; topping++) {
+            if ((used & (1 << topping)) == 0 && n-- == 0)
+                return topping;
+        }
+    }
+
+    private static String number(int value) {
+        return (value >= 0 && value < MAX_TABLE_NUMBER) ? NUMBERS[value] : Integer.toString(value);
+    }
+
+    private static String dateTimeZ(String dateTime, int millis) {
+        return new StringBuilder(dateTime.length() + 5).append(dateTime)
+                                                        .append('.')
+                                                        .append((char) ('0' + millis / 100))
+                                                        .append((char) ('0' + millis / 10 % 10))
+                                                        .append((char) ('0' + millis % 10))
+                                                        .append('Z')
+                                                        .toString();
+    }
+
+    private static SecondSlot secondSlot(long epochSecond) {
+        int index = (int) Math.floorMod(epochSecond, (long) SECOND_SLOTS);
+        SecondSlot slot = SECOND_SLOT.get(index);
+        if (slot == null || slot.epochSecond != epochSecond) {
+            // threads formatting the same second at once all get the same values
+            slot = new SecondSlot(epochSecond);
+            SECOND_SLOT.set(index, slot);
+        }
+        return slot;
+    }
+
+    // date part of the orders of one second, reused by every thread while the second lasts;
+    // the orderIds go by the local second, the same twice when the clock goes back
+    private static class SecondSlot {
+        private final long epochSecond;
+        private final long localSecond;
+        private final String dateTime;
+        private final String orderIdPrefix;
+
+        SecondSlot(long epochSecond) {
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            LocalDateTime localTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZONE_RULES.getOffset(instant));
+            this.epochSecond   = epochSecond;
+            this.localSecond   = localTime.toEpochSecond(ZoneOffset.UTC);
+            this.dateTime      = DATE_TIME.format(localTime);
+            this.orderIdPrefix = ORDER_ID_TIME.format(localTime);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Unique orderIds with the format of the simulator: the yyyyMMddHHmmss of the order
+ * followed by the orderIdNode digits of this instance, if set, and a sequence of that
+ * second of at least 3 digits, wider when more than 1000 orders fall in the second.
+ *
+ * The sequences are kept per second in a ring of slots and handed out in blocks with a
+ * compare-and-set to a few stripes, picked by the id of the thread, so the threads take
+ * their orderIds from different stripes and a fresh thread per order, like the virtual
+ * executor, uses a stripe block all the same. The block of a stripe starts with one
+ * orderId every second and doubles every time it runs out within that second, so slow
+ * runs keep 3 digit suffixes and fast ones don't compete for the slot.
+ *
+ * A second whose slot has moved to a later second, like the date-ini of a run repeated,
+ * goes on after every sequence the slot ever handed out, so no orderId is repeated by
+ * this instance. The slots live in memory, so a new process starts every second again
+ * at 0. Several simulators writing the same PIZZAORDER table, or a restarted one writing
+ * again the seconds it already did, need a different orderIdNode each, all with the same
+ * number of digits.
+ */
+@ApplicationScoped
+public class OrderIdAllocator {
+    private static final Logger LOGGER = Logger.getLogger(OrderIdAllocator.class.getName());
+
+    private static final int SLOTS          = 4096;
+    private static final int MAX_BLOCK      = 1024;
+    private static final int MIN_SEQ_DIGITS = 3;
+    private static final int STRIPES        = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8));
+
+    @Inject
+    @ConfigProperty(name="orderIdNode")
+    Optional<String> orderIdNode;
+
+    private String node = "";
+    private final AtomicReferenceArray<Window> windows = new AtomicReferenceArray<>(SLOTS);
+    private final Block[] blocks = new Block[STRIPES];
+
+    public OrderIdAllocator() {
+        for (int i = 0; i < SLOTS; i++)
+            windows.set(i, Window.EMPTY);
+        for (int i = 0; i < STRIPES; i++)
+            blocks[i] = new Block();
+    }
+
+    /**
+     * @param node digits of the instance, empty for a single instance
+     */
+    OrderIdAllocator(String node) {
+        this();
+        this.node = checkNode(node);
+    }
+
+    @PostConstruct
+    void init() {
+        node = checkNode(orderIdNode.orElse(""));
+        OrderGenerator.setOrderIdAllocator(this);
+        LOGGER.info("OrderIdAllocator node [" + node + "]");
+    }
+
+    /**
+     * Creates the allocator at startup, so the orders use the orderIdNode from the first one.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        LOGGER.fine("OrderIdAllocator ready");
+    }
+
+    /**
+     * @param epochSecond second of the order
+     * @param timePrefix yyyyMMddHHmmss of that second
+     * @return a new orderId
+     */
+    String nextOrderId(long epochSecond, String timePrefix) {
+        String seq = Long.toString(nextSequence(epochSecond));
+        StringBuilder orderId = new StringBuilder(timePrefix.length() + node.length() + 8).append(timePrefix).append(node);
+        for (int i = seq.length(); i < MIN_SEQ_DIGITS; i++)
+            orderId.append('0');
+        return orderId.append(seq).toString();
+    }
+
+    /**
+     * @return the next sequence of the second, from the block of the stripe of the thread
+     */
+    long nextSequence(long epochSecond) {
+        Block block = blocks[(int) (Thread.currentThread().threadId() & (STRIPES - 1))];
+        synchronized (block) {
+            if (block.second != epochSecond || block.next == block.end) {
+                int size = (block.second == epochSecond) ? Math.min(block.size * 2, MAX_BLOCK) : 1;
+                block.next   = reserve(epochSecond, size);
+                block.end    = block.next + size;
+                block.size   = size;
+                block.second = epochSecond;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserve(long epochSecond, int size) {
+        int index = (int) Math.floorMod(epochSecond, (long) SLOTS);
+        while (true) {
+            Window window = windows.get(index);
+            long start;
+            if (window.second == epochSecond)
+                start = window.next;
+            else if (window == Window.EMPTY || epochSecond > window.maxSecond)
+                start = 0;
+            else
+                start = window.highWater;
+            Window reserved = new Window(epochSecond,
+                                         (window == Window.EMPTY) ? epochSecond : Math.max(epochSecond, window.maxSecond),
+                                         start + size,
+                                         Math.max(window.highWater, start + size));
+            if (windows.compareAndSet(index, window, reserved))
+                return start;
+        }
+    }
+
+    private static String checkNode(String node) {
+        for (int i = 0; i < node.length(); i++) {
+            if (node.charAt(i) < '0' || node.charAt(i) > '9')
+                throw new IllegalArgumentException("orderIdNode -> " + node + " must be digits");
+        }
+        return node;
+    }
+
+    // the sequences of one slot: the second using it, the latest second it had, the
+    // next sequence of its second and the end of all the sequences it handed out
+    private static class Window {
+        private static final Window EMPTY = new Window(Long.MIN_VALUE, Long.MIN_VALUE, 0, 0);
+
+        private final long second;
+        private final long maxSecond;
+        private final long next;
+        private final long highWater;
+
+        Window(long second, long maxSecond, long next, long highWater) {
+            this.second    = second;
+            this.maxSecond = maxSecond;
+            this.next      = next;
+            this.highWater = highWater;
+        }
+    }
+
+    // sequences [next, end) of one second, reserved by a stripe
+    private static class Block {
+        private long second = Long.MIN_VALUE;
+        private long next;
+        private long end;
+        private int size;
+    }
+}
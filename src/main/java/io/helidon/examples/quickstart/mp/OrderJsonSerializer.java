@@ -0,0 +1,256 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the JSON of a {@link GeneratedOrder} straight from precompiled templates of
+ * the order and payment documents: the constant text is kept as String and as UTF-8
+ * bytes, and only the values of the order are written between them, escaped like
+ * javax.json does. No JsonObject is built and the output is the same, byte by byte,
+ * as {@link GeneratedOrder#toJson()}.toString().
+ *
+ * The byte[] and String results are built in a buffer of the calling thread that is
+ * reused by its next orders.
+ */
+final class OrderJsonSerializer {
+    // the values of an order, ${name} in the templates
+    private static final String[] SLOT_NAMES = { "orderId", "dateTime", "status", "paymentMethod", "serviceSurvey",
+                                                 "totalPaid", "totalPrice", "originalPrice", "longitude", "latitude",
+                                                 "number", "door", "citycode", "baseType", "topping1", "topping2",
+                                                 "topping3", "telephone" };
+
+    private static final String ORDER_TEMPLATE =
+        "{\"dateTimeOrderTaken\":\"${dateTime}\",\"takenByEmployee\":\"" + GeneratedOrder.TAKEN_BY_EMPLOYEE + "\","
+        + "\"customer\":{\"customerId\":{\"telephone\":\"${telephone}\",\"email\":\"" + GeneratedOrder.EMAIL + "\"}},"
+        + "\"pizzaOrdered\":{\"baseType\":\"${baseType}\",\"topping1\":\"${topping1}\",\"topping2\":\"${topping2}\",\"topping3\":\"${topping3}\"},"
+        + "\"totalPrice\":\"${totalPrice}\","
+        + "\"customerAdress\":{\"street\":{\"name\":\"" + GeneratedOrder.STREET + "\",\"long\":\"${longitude}\",\"lat\":\"${latitude}\"},"
+        + "\"number\":\"${number}\",\"door\":\"${door}\",\"email\":\"" + GeneratedOrder.EMAIL + "\",\"citycode\":\"${citycode}\",\"city\":\"" + GeneratedOrder.CITY + "\"},"
+        + "\"orderId\":\"${orderId}\",\"status\":\"${status}\"}";
+    private static final String PAYMENT_TEMPLATE =
+        "{\"paymentid\":\"p${orderId}\",\"paymentTime\":\"${dateTime}\",\"orderId\":\"${orderId}\","
+        + "\"paymentMethod\":\"${paymentMethod}\",\"serviceSurvey\":\"${serviceSurvey}\",\"totalPaid\":\"${totalPaid}\","
+        + "\"customerId\":\"" + GeneratedOrder.CUSTOMER_ID + "\",\"originalPrice\":\"${originalPrice}\"}";
+
+    private static final Template DOCUMENT = Template.compile("{\"order\":" + ORDER_TEMPLATE + ",\"payment\":" + PAYMENT_TEMPLATE + "}");
+    private static final Template ORDER    = Template.compile(ORDER_TEMPLATE);
+
+    private static final ThreadLocal<StringBuilder> CHARS = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    private static final ThreadLocal<ByteSink> BYTES      = ThreadLocal.withInitial(ByteSink::new);
+
+    private OrderJsonSerializer() {
+    }
+
+    /**
+     * @return {"order": {...}, "payment": {...}} as UTF-8
+     */
+    static byte[] toBytes(GeneratedOrder order) {
+        ByteSink sink = BYTES.get();
+        sink.length = 0;
+        DOCUMENT.write(order, sink);
+        return Arrays.copyOf(sink.bytes, sink.length);
+    }
+
+    /**
+     * @return {"order": {...}, "payment": {...}}
+     */
+    static String toString(GeneratedOrder order) {
+        return toString(DOCUMENT, order);
+    }
+
+    /**
+     * @return the "order" document alone, the DATA of PIZZAORDER
+     */
+    static String orderToString(GeneratedOrder order) {
+        return toString(ORDER, order);
+    }
+
+    /**
+     * Writes {"order": {...}, "payment": {...}} to the writer, piece by piece.
+     *
+     * @throws IOException the error of the writer
+     */
+    static void writeTo(GeneratedOrder order, Writer writer) throws IOException {
+        DOCUMENT.write(order, writer);
+    }
+
+    private static String toString(Template template, GeneratedOrder order) {
+        StringBuilder chars = CHARS.get();
+        chars.setLength(0);
+        try {
+            template.write(order, chars);
+        }
+        catch (IOException ex) {
+            // a StringBuilder doesn't throw it
+            throw new UncheckedIOException(ex);
+        }
+        return chars.toString();
+    }
+
+    private static String slotValue(GeneratedOrder order, int slot) {
+        switch (slot) {
+            case 0:  return order.orderId;
+            case 1:  return order.dateTime;
+            case 2:  return order.status;
+            case 3:  return order.paymentMethod;
+            case 4:  return order.serviceSurvey;
+            case 5:  return order.totalPaid;
+            case 6:  return order.totalPrice;
+            case 7:  return order.originalPrice;
+            case 8:  return order.longitude;
+            case 9:  return order.latitude;
+            case 10: return order.number;
+            case 11: return order.door;
+            case 12: return order.citycode;
+            case 13: return order.baseType;
+            case 14: return order.topping1;
+            case 15: return order.topping2;
+            case 16: return order.topping3;
+            case 17: return order.telephone;
+            default: throw new IllegalArgumentException("slot " + slot);
+        }
+    }
+
+    // the characters javax.json escapes in a string: '"', '\' and the control characters
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\';
+    }
+
+    private static void appendEscaped(Appendable out, String value) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!needsEscape(c))
+                continue;
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                case '\\':
+                    out.append('\\').append(c);
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    String hex = "000" + Integer.toHexString(c);
+                    out.append("\\u").append(hex, hex.length() - 4, hex.length());
+            }
+        }
+        out.append(value, start, value.length());
+    }
+
+    /**
+     * A document split into its constant text and the slots of the values between them:
+     * literal[0] slot[0] literal[1] ... slot[n-1] literal[n].
+     */
+    private static class Template {
+        private final String[] literals;
+        private final byte[][] literalBytes;
+        private final int[] slots;
+
+        private Template(String[] literals, int[] slots) {
+            this.literals     = literals;
+            this.slots        = slots;
+            this.literalBytes = new byte[literals.length][];
+            for (int i = 0; i < literals.length; i++)
+                literalBytes[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        static Template compile(String template) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> slots   = new ArrayList<>();
+            int start = 0;
+            int open;
+            while ((open = template.indexOf("${", start)) >= 0) {
+                int close = template.indexOf('}', open);
+                literals.add(template.substring(start, open));
+                slots.add(Arrays.asList(SLOT_NAMES).indexOf(template.substring(open + 2, close)));
+                start = close + 1;
+            }
+            literals.add(template.substring(start));
+            if (slots.contains(-1))
+                throw new IllegalStateException("Unknown slot in " + template);
+            return new Template(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        void write(GeneratedOrder order, Appendable out) throws IOException {
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]);
+                appendEscaped(out, slotValue(order, slots[i]));
+            }
+            out.append(literals[slots.length]);
+        }
+
+        void write(GeneratedOrder order, ByteSink sink) {
+            for (int i = 0; i < slots.length; i++) {
+                sink.write(literalBytes[i]);
+                sink.writeEscaped(slotValue(order, slots[i]));
+            }
+            sink.write(literalBytes[slots.length]);
+        }
+    }
+
+    /**
+     * Growable byte buffer of a thread. ASCII values that need no escaping are copied
+     * char by char, the others are escaped and encoded to UTF-8.
+     */
+    private static class ByteSink {
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        void write(byte[] src) {
+            ensure(src.length);
+            System.arraycopy(src, 0, bytes, length, src.length);
+            length += src.length;
+        }
+
+        void writeEscaped(String value) {
+            int size = value.length();
+            ensure(size);
+            for (int i = 0; i < size; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80 || needsEscape(c)) {
+                    writeSlow(value);
+                    return;
+                }
+                bytes[length + i] = (byte) c;
+            }
+            length += size;
+        }
+
+        private void writeSlow(String value) {
+            StringBuilder escaped = new StringBuilder(value.length() + 16);
+            try {
+                appendEscaped(escaped, value);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            write(escaped.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Starts the orders of an open-loop run on the fixed timeline of a {@link RateSchedule}.
+ * The start times come from the schedule and the start of the run, never from the
+ * previous completions, so a slow orchestrator doesn't lower the offered load: the
+ * orders that can't start in time are counted as missed schedule instead.
+ *
+ * The schedule can be replaced while the run goes on, see {@link #retune(RateSchedule)}.
+ */
+public class OrderPacer {
+    // parkNanos may oversleep ~50-100us, the last stretch before a start is spun
+    private static final long SPIN_NANOS = 100_000;
+    // longest park, so a cancel is seen while waiting for a slow schedule
+    private static final long MAX_PARK_NANOS = 100_000_000;
+
+    private final long lateToleranceNanos;
+    private final double timeCompression;
+    private final AtomicReference<RateSchedule> retuned = new AtomicReference<>();
+
+    // timeline of the current schedule, set by the submitting thread, read by currentRate()
+    private volatile RateSchedule schedule;
+    private volatile long baseNanos;
+    private long baseIndex;
+    private long runStartNanos;
+
+    /**
+     * @param schedule target rate of the run
+     * @param lateToleranceNanos delay after its intended start for an order to count as missed schedule
+     */
+    public OrderPacer(RateSchedule schedule, long lateToleranceNanos) {
+        this(schedule, lateToleranceNanos, 1);
+    }
+
+    /**
+     * @param schedule target rate of the run, in real time
+     * @param lateToleranceNanos delay after its intended start for an order to count as missed schedule
+     * @param timeCompression simulated seconds per real second, see {@link LoadProfile}
+     */
+    public OrderPacer(RateSchedule schedule, long lateToleranceNanos, double timeCompression) {
+        this.schedule           = schedule;
+        this.lateToleranceNanos = lateToleranceNanos;
+        this.timeCompression    = timeCompression;
+    }
+
+    /**
+     * @param runStartNanos System.nanoTime() at the start of the run, the time of order 0
+     */
+    void start(long runStartNanos) {
+        this.runStartNanos = runStartNanos;
+        this.baseNanos     = runStartNanos;
+        this.baseIndex     = 0;
+    }
+
+    /**
+     * The simulated clock of the run: real time since the start, time-compression times faster.
+     *
+     * @param intendedNanos intended start of an order
+     * @return simulated milliseconds from the start of the run to the order
+     */
+    long simulatedMillis(long intendedNanos) {
+        return (long) ((intendedNanos - runStartNanos) * timeCompression / 1_000_000);
+    }
+
+    /**
+     * Replaces the schedule of a running simulation. The new one starts at the next
+     * order to submit, from the time it is submitted.
+     *
+     * @param newSchedule the new target rate
+     */
+    public void retune(RateSchedule newSchedule) {
+        retuned.set(newSchedule);
+    }
+
+    /**
+     * @return true if a new schedule is waiting for the next order
+     */
+    boolean isRetuned() {
+        return retuned.get() != null;
+    }
+
+    /**
+     * @return the target orders per second now
+     */
+    public double currentRate() {
+        RateSchedule current = retuned.get();
+        return (current != null) ? current.rateAt(0) : schedule.rateAt(System.nanoTime() - baseNanos);
+    }
+
+    /**
+     * @param index order number, from 0
+     * @return System.nanoTime() the order should start at, Long.MAX_VALUE if never
+     */
+    long intendedStart(long index) {
+        RateSchedule next = retuned.getAndSet(null);
+        if (next != null) {
+            schedule  = next;
+            baseNanos = System.nanoTime();
+            baseIndex = index;
+        }
+        long offset = schedule.startOffsetNanos(index - baseIndex);
+        return (offset == Long.MAX_VALUE) ? Long.MAX_VALUE : baseNanos + offset;
+    }
+
+    /**
+     * @param intendedNanos intended start of an order
+     * @param startNanos actual start of the order
+     * @return true if it started later than the tolerance allows
+     */
+    boolean isLate(long intendedNanos, long startNanos) {
+        return startNanos - intendedNanos > lateToleranceNanos;
+    }
+
+    /**
+     * Waits until System.nanoTime() reaches deadlineNanos.
+     *
+     * @param deadlineNanos the intended start
+     * @param interrupted checked between parks: a cancel, a stop or a new schedule
+     * @return false if interrupted before the deadline
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitUntil(long deadlineNanos, BooleanSupplier interrupted) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (interrupted.getAsBoolean())
+                return false;
+            if (remaining > SPIN_NANOS)
+                LockSupport.parkNanos(Math.min(remaining - SPIN_NANOS, MAX_PARK_NANOS));
+            else
+                Thread.onSpinWait();
+        }
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package io.helidon.examples.quickstart.mp;
 
+import java.util.concurrent.CompletionStage;
+
 import javax.enterprise.context.RequestScoped;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
@@ -38,4 +40,22 @@ public interface OrderService {
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
     public JsonObject changeStatus (JsonObject order);
-}
\ No newline at end of file
+
+    /**
+     * createOrder without blocking the caller, the call runs in the client executor.
+     */
+    @POST
+    @Path("/createOrder")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<JsonObject> createOrderAsync(JsonObject order);
+
+    /**
+     * changeStatus without blocking the caller, the call runs in the client executor.
+     */
+    @PUT
+    @Path("/changeStatus")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<JsonObject> changeStatusAsync(JsonObject order);
+}
@@ -0,0 +1,41 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.json.JsonObject;
+
+/**
+ * Where a DATABASE mode run writes each generated order: the PIZZAORDER row, the
+ * PAYMENTS row and the TOPPING_STORAGE/BASEPIZZA_STORAGE consumption. Chosen with the
+ * database "sink" of the sim-config:
+ *
+ * oracle (default): {@link JdbcOrderSink} on the ATP schema, with the wallet.
+ * jdbc: {@link JdbcOrderSink} on any JDBC database with the same MICROSERVICE.* tables,
+ * like an embedded H2.
+ * memory: {@link InMemoryOrderSink}, no database at all, to measure the generator alone.
+ *
+ * A sink is created for one run and closed when its tasks have run.
+ */
+public interface OrderSink extends AutoCloseable {
+    /**
+     * Called from the simulation threads, at the same time.
+     *
+     * @param order the generated order and payment
+     * @return stage completed with the orderId when the order is stored, or "false"
+     * @throws Exception any error is counted as a failed order
+     */
+    CompletionStage<String> write(GeneratedOrder order) throws Exception;
+
+    /**
+     * @return what the sink stored in the run, null if it has nothing to report
+     */
+    default JsonObject toJson() {
+        return null;
+    }
+
+    /**
+     * Writes what is still pending of the run.
+     */
+    @Override
+    void close() throws Exception;
+}
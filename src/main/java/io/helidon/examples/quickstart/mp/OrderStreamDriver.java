@@ -0,0 +1,290 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Submits the orders of a simulation one by one from a counter instead of building
+ * a task list and a future list of num-orders entries. At most window orders are
+ * submitted and without their result, whether their task has returned or its result
+ * is still pending, like a queued batch or an async REST call. Every result is folded
+ * into a {@link RunStats} and handed to the {@link Listener} as soon as it completes,
+ * so the memory of a run doesn't depend on its num-orders.
+ *
+ * With an {@link OrderPacer} the run is open-loop: each order is submitted at its
+ * intended start, its latency is measured from that start, and the orders that start
+ * late, for lack of a free thread or of room in the window, are counted as missed
+ * schedule.
+ */
+public class OrderStreamDriver {
+    private static final Logger LOGGER = Logger.getLogger(OrderStreamDriver.class.getName());
+
+    /**
+     * Creates one order.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * @param index order number in the run, from 0
+         * @param startNanos start of the order, its intended start in an open-loop run
+         * @return the orderId when the order is stored, "false" if it failed, RunStats.FAST_FAIL if it was rejected
+         * @throws Exception any error is counted as a failed order
+         */
+        CompletionStage<String> execute(long index, long startNanos) throws Exception;
+    }
+
+    /**
+     * Receives the result of each order, from the thread that completed it.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param index order number in the run
+         * @param orderId the result of the order, "false" if it failed
+         * @param latencyNanos time from the start of the task to its result, from its intended
+         *                     start in an open-loop run
+         */
+        void onResult(long index, String orderId, long latencyNanos);
+    }
+
+    private final Executor executor;
+    private final Task task;
+    private final Listener listener;
+    private final int window;
+    private final Semaphore permits;
+    private final OrderPacer pacer;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private final CompletableFuture<Void> allResults = new CompletableFuture<>();
+
+    private volatile RunStats stats;
+    private volatile boolean cancelled = false;
+    private volatile boolean stopped   = false;
+    private AtomicLong pendingResults;
+
+    /**
+     * @param executor the threads that run the tasks
+     * @param window max orders submitted and without result
+     * @param task the order task
+     * @param listener result callback, can be null
+     */
+    public OrderStreamDriver(Executor executor, int window, Task task, Listener listener) {
+        this(executor, window, task, listener, null);
+    }
+
+    /**
+     * @param executor the threads that run the tasks
+     * @param window max orders submitted and without result, the max in-flight orders of an open-loop run
+     * @param task the order task
+     * @param listener result callback, can be null
+     * @param pacer start times of an open-loop run, null to submit as fast as the window allows
+     */
+    public OrderStreamDriver(Executor executor, int window, Task task, Listener listener, OrderPacer pacer) {
+        this.executor = executor;
+        this.task     = task;
+        this.listener = listener;
+        this.window   = window;
+        this.permits  = new Semaphore(window);
+        this.pacer    = pacer;
+    }
+
+    /**
+     * Limits the orders in flight, from their submit to their result, with an adaptive
+     * limit. Call it before {@link #submit(long, long)}.
+     *
+     * @param concurrencyLimit the auto-tune limit
+     */
+    public void limitConcurrency(AdaptiveConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    /**
+     * Submits numOrders tasks and returns when the result of every one of them is in.
+     *
+     * @param numOrders orders of the run
+     * @throws InterruptedException if interrupted waiting for the window
+     */
+    public void submit(long numOrders) throws InterruptedException {
+        submit(numOrders, 0);
+    }
+
+    /**
+     * Submits up to numOrders tasks, for at most durationNanos, and returns when the
+     * result of every one of them is in. A continuous run uses Long.MAX_VALUE orders and
+     * ends with its duration or with {@link #stop()}.
+     *
+     * The results queued in a batch or a commit group come when it is written, so with a
+     * window smaller than batch-size or commit-every the batch never fills up and its
+     * results only come batch-flush-ms after its first order.
+     *
+     * @param numOrders max orders of the run
+     * @param durationNanos max submission time, 0 for no limit
+     * @throws InterruptedException if interrupted waiting for the window
+     */
+    public void submit(long numOrders, long durationNanos) throws InterruptedException {
+        stats          = new RunStats(numOrders);
+        pendingResults = new AtomicLong(numOrders);
+        if (numOrders == 0)
+            allResults.complete(null);
+
+        long runStartNanos = System.nanoTime();
+        long endNanos      = (durationNanos > 0) ? runStartNanos + durationNanos : 0;
+        if (pacer != null)
+            pacer.start(runStartNanos);
+        if (concurrencyLimit != null)
+            concurrencyLimit.start();
+
+        long index = 0;
+        while (index < numOrders && !cancelled && !stopped && !isOver(endNanos)) {
+            long intendedNanos = 0;
+            if (pacer != null) {
+                intendedNanos = pacer.intendedStart(index);
+                if (intendedNanos == Long.MAX_VALUE) {
+                    LOGGER.info("Rate schedule ended after " + index + " of " + numOrders + " orders");
+                    break;
+                }
+                // a new schedule, a stop or the end of the run is checked again at the top
+                long waitNanos = (endNanos != 0 && endNanos - intendedNanos < 0) ? endNanos : intendedNanos;
+                if (!pacer.awaitUntil(waitNanos, () -> cancelled || stopped || pacer.isRetuned())
+                        || waitNanos != intendedNanos)
+                    continue;
+            }
+            if (concurrencyLimit != null && !concurrencyLimit.tryAcquire(100, TimeUnit.MILLISECONDS))
+                continue;
+            if (!permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (concurrencyLimit != null)
+                    concurrencyLimit.release();
+                continue;
+            }
+            long orderIndex    = index++;
+            long orderIntended = intendedNanos;
+            try {
+                executor.execute(() -> runTask(orderIndex, orderIntended));
+            }
+            catch (RejectedExecutionException ex) {
+                LOGGER.log(Level.SEVERE, "ERROR Task " + orderIndex + " rejected " + ex.getMessage());
+                complete(orderIndex, "false", (pacer != null) ? orderIntended : System.nanoTime());
+            }
+        }
+        if (index < numOrders) {
+            if (cancelled) {
+                LOGGER.info("Run cancelled after " + index + " of " + numOrders + " orders");
+                stats.cancel(numOrders - index);
+            }
+            else {
+                // stopped, duration reached or schedule ended: the run is the orders submitted
+                LOGGER.info("Run ended after " + index + " orders");
+                stats.setNumOrders(index);
+            }
+            if (pendingResults.addAndGet(index - numOrders) == 0)
+                allResults.complete(null);
+        }
+        // every permit is back when the last result is in
+        permits.acquire(window);
+        permits.release(window);
+    }
+
+    private static boolean isOver(long endNanos) {
+        return endNanos != 0 && System.nanoTime() - endNanos >= 0;
+    }
+
+    /**
+     * Stops submitting orders. The queued ones are dropped and the running ones are
+     * waited for.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Ends a run normally: no more orders are submitted, the submitted ones still run.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the totals of the run so far, null before {@link #submit(long)}
+     */
+    public RunStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Waits for the results of all the submitted orders.
+     *
+     * @return the totals of the run
+     * @throws InterruptedException if interrupted waiting for the results
+     */
+    public RunStats awaitResults() throws InterruptedException {
+        try {
+            allResults.get();
+        }
+        catch (ExecutionException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR waiting for results " + ex.getMessage());
+        }
+        stats.end();
+        return stats;
+    }
+
+    private void runTask(long index, long intendedNanos) {
+        if (cancelled) {
+            // queued before the cancel, it is dropped instead of run
+            permits.release();
+            if (concurrencyLimit != null)
+                concurrencyLimit.release();
+            stats.cancel(1);
+            if (pendingResults.decrementAndGet() == 0)
+                allResults.complete(null);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        if (pacer != null) {
+            if (pacer.isLate(intendedNanos, startNanos))
+                stats.missSchedule();
+            // open-loop latency includes the time the order waited past its intended start
+            startNanos = intendedNanos;
+        }
+        long latencyStart = startNanos;
+        CompletionStage<String> result;
+        try {
+            result = task.execute(index, latencyStart);
+        }
+        catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "ERROR Task " + ex.getMessage());
+            result = CompletableFuture.completedFuture("false");
+        }
+        if (result == null)
+            result = CompletableFuture.completedFuture("false");
+        result.whenComplete((orderId, error) -> complete(index, (error == null) ? orderId : "false", latencyStart));
+    }
+
+    private void complete(long index, String orderId, long startNanos) {
+        if (orderId == null)
+            orderId = "false";
+        long latencyNanos = System.nanoTime() - startNanos;
+        try {
+            stats.record(orderId);
+            if (listener != null)
+                listener.onResult(index, orderId, latencyNanos);
+        }
+        catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR result listener " + ex.getMessage());
+        }
+        finally {
+            permits.release();
+            if (concurrencyLimit != null)
+                concurrencyLimit.release(latencyNanos, orderId.equals("false") || orderId.equals(RunStats.FAST_FAIL));
+            if (pendingResults.decrementAndGet() == 0)
+                allResults.complete(null);
+        }
+    }
+}
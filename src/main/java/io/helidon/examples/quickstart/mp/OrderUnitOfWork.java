@@ -0,0 +1,256 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * DATABASE mode sink that writes the PIZZAORDER insert, the PAYMENTS insert and, without
+ * an {@link InventoryAggregator}, the TOPPING_STORAGE and BASEPIZZA_STORAGE updates of an
+ * order in the same transaction, committed every commit-every orders instead of once per
+ * statement. {@link JdbcOrderSink} always gives it an aggregator: the open transactions
+ * would otherwise lock the same storage rows in different orders and deadlock.
+ *
+ * The transactions are not bound to threads: every order borrows a free one, so at
+ * most maxTransactions connections are used whatever the number of threads is. If any
+ * statement fails the whole group of the transaction is rolled back and all of its
+ * orders are reported as "false".
+ *
+ * A free transaction keeps the row locks of its orders until it is taken again, and the
+ * threads of the executor are shared with other runs that may be waiting for those rows.
+ * So a committer thread of its own commits every free transaction whose first order is
+ * older than idleCommitMillis, whether the simulation threads come back or not.
+ */
+public class OrderUnitOfWork implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(OrderUnitOfWork.class.getName());
+
+    private final DataSource dataSource;
+    private final InventoryCatalog catalog;
+    private final SqlDialect dialect;
+    private final InventoryAggregator inventory;
+    private final int commitEvery;
+    private final int maxTransactions;
+    private final long idleCommitNanos;
+    private final ScheduledExecutorService committer;
+
+    private final LinkedBlockingQueue<Transaction> freeTransactions = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Transaction> allTransactions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger createdTransactions = new AtomicInteger();
+
+    /**
+     * @param dataSource the connection pool
+     * @param catalog the storage keys
+     * @param dialect the SQL of the database
+     * @param inventory if not null, the storage updates of the committed orders go to it
+     * @param commitEvery orders per commit
+     * @param maxTransactions max transactions open at the same time
+     * @param idleCommitMillis max age of the first order of a free transaction
+     */
+    public OrderUnitOfWork(DataSource dataSource, InventoryCatalog catalog, SqlDialect dialect, InventoryAggregator inventory,
+                           int commitEvery, int maxTransactions, long idleCommitMillis) {
+        this.dataSource      = dataSource;
+        this.catalog         = catalog;
+        this.dialect         = dialect;
+        this.inventory       = inventory;
+        this.commitEvery     = commitEvery;
+        this.maxTransactions = maxTransactions;
+        this.idleCommitNanos = TimeUnit.MILLISECONDS.toNanos(idleCommitMillis);
+        this.committer       = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "unit-of-work-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleCommitMillis / 2);
+        this.committer.scheduleWithFixedDelay(this::commitIdle, period, period, TimeUnit.MILLISECONDS);
+        LOGGER.info("OrderUnitOfWork: commitEvery[" + commitEvery + "] | maxTransactions[" + maxTransactions
+                    + "] | idleCommitMillis[" + idleCommitMillis + "]");
+    }
+
+    /**
+     * Runs the four statements of the order in a borrowed transaction.
+     *
+     * @param order the generated order
+     * @return future completed with the orderId when its group is committed, or "false"
+     * @throws InterruptedException if interrupted waiting for a free transaction
+     */
+    public CompletableFuture<String> write(GeneratedOrder order) throws InterruptedException {
+        String orderId = order.orderId;
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Transaction tx = borrow();
+        try {
+            if (tx.pending.isEmpty())
+                tx.firstOrderNanos = System.nanoTime();
+            tx.pending.add(new PendingResult(order, result));
+            tx.prepare();
+            DatabaseClient.bindInsertOrder(tx.insertOrder, order, System.currentTimeMillis());
+            DatabaseClient.bindInsertPayment(tx.insertPayment, dialect, order);
+            if (inventory == null) {
+                DatabaseClient.bindUpdateToppings(tx.updateToppings, catalog, order);
+                DatabaseClient.bindUpdateBasePizza(tx.updateBasePizza, catalog, order);
+            }
+            if (tx.insertOrder.executeUpdate() > 0 && tx.insertPayment.executeUpdate() > 0
+                    && (inventory != null || (tx.updateToppings.executeUpdate() > 0 && tx.updateBasePizza.executeUpdate() > 0))) {
+                if (tx.pending.size() >= commitEvery)
+                    tx.commit();
+            }
+            else {
+                LOGGER.log(Level.SEVERE, "ERROR IN DB INSERT orderId[" + orderId + "] result <= 0");
+                tx.rollback();
+            }
+        }
+        catch (SQLException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR [" + orderId + "] " + ex.getMessage());
+            tx.rollback();
+        }
+        finally {
+            freeTransactions.add(tx);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the committer, commits the open groups and gives the connections back to
+     * the pool. Must be called when no order is being written.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        committer.shutdown();
+        committer.awaitTermination(1, TimeUnit.MINUTES);
+        for (Transaction tx : allTransactions) {
+            if (!tx.pending.isEmpty())
+                tx.commit();
+            tx.closeConnection();
+        }
+        allTransactions.clear();
+        freeTransactions.clear();
+    }
+
+    // takes every free transaction in turn, so no order is written on it meanwhile
+    private void commitIdle() {
+        long now = System.nanoTime();
+        for (int i = freeTransactions.size(); i > 0; i--) {
+            Transaction tx = freeTransactions.poll();
+            if (tx == null)
+                return;
+            try {
+                if (!tx.pending.isEmpty() && now - tx.firstOrderNanos >= idleCommitNanos)
+                    tx.commit();
+            }
+            catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "ERROR idle commit " + ex.getMessage());
+            }
+            finally {
+                freeTransactions.add(tx);
+            }
+        }
+    }
+
+    private Transaction borrow() throws InterruptedException {
+        Transaction tx = freeTransactions.poll();
+        if (tx != null)
+            return tx;
+
+        int created = createdTransactions.get();
+        while (created < maxTransactions) {
+            if (createdTransactions.compareAndSet(created, created + 1)) {
+                tx = new Transaction();
+                allTransactions.add(tx);
+                return tx;
+            }
+            created = createdTransactions.get();
+        }
+        return freeTransactions.take();
+    }
+
+    private class Transaction {
+        private final List<PendingResult> pending = new ArrayList<>(commitEvery);
+        private long firstOrderNanos;
+
+        private Connection conn;
+        private PreparedStatement insertOrder;
+        private PreparedStatement insertPayment;
+        private PreparedStatement updateToppings;
+        private PreparedStatement updateBasePizza;
+
+        private void prepare() throws SQLException {
+            if (conn != null)
+                return;
+
+            conn = dataSource.getConnection();
+            conn.setAutoCommit(false);
+            insertOrder     = conn.prepareStatement(DatabaseClient.INSERT_ORDER_SQL);
+            insertPayment   = conn.prepareStatement(dialect.getInsertPaymentSql());
+            updateToppings  = conn.prepareStatement(DatabaseClient.UPDATE_TOPPINGS_SQL);
+            updateBasePizza = conn.prepareStatement(DatabaseClient.UPDATE_BASEPIZZA_SQL);
+        }
+
+        private void commit() {
+            try {
+                conn.commit();
+                for (PendingResult result : pending) {
+                    if (inventory != null)
+                        inventory.add(result.order);
+                    result.future.complete(result.orderId);
+                }
+                pending.clear();
+            }
+            catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "ERROR commit of " + pending.size() + " orders " + ex.getMessage());
+                rollback();
+            }
+        }
+
+        private void rollback() {
+            LOGGER.log(Level.SEVERE, "ERROR rollback of " + pending.size() + " orders");
+            try {
+                if (conn != null)
+                    conn.rollback();
+            }
+            catch (SQLException ex) {
+                // broken connection, the next order borrows a new one
+                LOGGER.log(Level.SEVERE, "ERROR rollback " + ex.getMessage());
+                closeConnection();
+            }
+            for (PendingResult result : pending) {
+                result.future.complete("false");
+            }
+            pending.clear();
+        }
+
+        private void closeConnection() {
+            try {
+                if (conn != null)
+                    conn.close();
+            }
+            catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "ERROR close unit of work connection " + ex.getMessage());
+            }
+            conn = null;
+        }
+    }
+
+    private static class PendingResult {
+        private final GeneratedOrder order;
+        private final String orderId;
+        private final CompletableFuture<String> future;
+
+        PendingResult(GeneratedOrder order, CompletableFuture<String> future) {
+            this.order   = order;
+            this.orderId = order.orderId;
+            this.future  = future;
+        }
+    }
+}
@@ -1,19 +1,19 @@
 package io.helidon.examples.quickstart.mp;
 
-import java.util.Date;
-import java.util.Random;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.json.Json;
+import javax.json.JsonArrayBuilder;
 import javax.json.JsonBuilderFactory;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -22,6 +22,15 @@ public class PizzaOrder {
     private static final Logger LOGGER = Logger.getLogger(PizzaOrder.class.getName());
     private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
 
+    // Pizza catalog used by the generator, baseType is "<size> <base>".
+    static final String[] SIZES    = { "Small", "Medium", "Large", "X-Large" };
+    static final String[] BASES    = { "BACON SPINACH ALFREDO", "CHEESE BASIC", "HAWAIIAN CHICKEN", "MEAT LOVER", "PEPPERONI",
+                                       "PREMIUM GARDEN VEGGIE", "SUPREME", "ULTIMATE CHEESE LOVER" };
+    static final String[] TOPPINGS = { "Tuna", "Onions", "BBQ Sauce", "Tomatos", "Mushrooms" };
+
+    // Default max orders submitted and without result, see OrderStreamDriver.
+    static final int DEFAULT_WINDOW = 10000;
+
     @Inject
     @ConfigProperty(name="minThreads", defaultValue="20")
     protected int minThreads;
@@ -30,186 +39,172 @@ public class PizzaOrder {
     @ConfigProperty(name="maxThreads", defaultValue="20")
     protected int maxThreads;
 
+    // shared SimulatorExecutor pool, the simulations never shut it down
+    protected final ExecutorService executorService;
+
+    protected int window          = DEFAULT_WINDOW;
+    protected boolean summaryOnly = false;
+
+    // per operation latency of the run
+    protected final LatencyRecorder latency = new LatencyRecorder();
+
+    // continuous run: num-orders is only a limit, the run ends with its duration or a stop
+    protected boolean continuous   = false;
+    protected long durationNanos   = 0;
 
-    public PizzaOrder(int minThreads, int maxThreads) {
-        this.minThreads   = minThreads;
-        this.maxThreads   = maxThreads;
+    private OrderPacer pacer;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private OrderStreamDriver.Listener resultListener;
+    private volatile OrderStreamDriver driver;
+    private volatile boolean cancelled = false;
+    private volatile boolean stopped   = false;
+    private volatile StartDate startDate;
+
+    public PizzaOrder(int minThreads, int maxThreads, ExecutorService executorService) {
+        this.minThreads      = minThreads;
+        this.maxThreads      = maxThreads;
+        this.executorService = executorService;
     }
 
-    private String getDateTimeZFormat(Date dateCal) {
-        SimpleDateFormat formatReturn = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        return formatReturn.format(dateCal);
+    /**
+     * @param window max orders submitted and without result
+     * @param summaryOnly true to answer only the run totals, without the orderId of every order
+     */
+    public void setRunOptions(int window, boolean summaryOnly) {
+        this.window      = window;
+        this.summaryOnly = summaryOnly;
     }
 
-    private String getOrderIdFromDate(Calendar dateCal) {
+    int getWindow() {
+        return window;
+    }
 
-        StringBuilder strOrderId = new StringBuilder().append(dateCal.get(Calendar.YEAR))
-                .append((dateCal.get(Calendar.MONTH) + 1) < 10 ? "0" + (dateCal.get(Calendar.MONTH) + 1) : (dateCal.get(Calendar.MONTH) + 1))
-                .append(dateCal.get(Calendar.DATE)        < 10 ? "0" + dateCal.get(Calendar.DATE)        : dateCal.get(Calendar.DATE))
-                .append(dateCal.get(Calendar.HOUR_OF_DAY) < 10 ? "0" + dateCal.get(Calendar.HOUR_OF_DAY) : dateCal.get(Calendar.HOUR_OF_DAY))
-                .append(dateCal.get(Calendar.MINUTE)      < 10 ? "0" + dateCal.get(Calendar.MINUTE)      : dateCal.get(Calendar.MINUTE))
-                .append(dateCal.get(Calendar.SECOND)      < 10 ? "0" + dateCal.get(Calendar.SECOND)      : dateCal.get(Calendar.SECOND))
-                .append(genNumber(100, 999));
+    /**
+     * @param pacer start times of an open-loop run, null for a closed-loop run
+     */
+    public void setPacer(OrderPacer pacer) {
+        this.pacer = pacer;
+    }
 
-        return strOrderId.toString();
+    /**
+     * @param concurrencyLimit adaptive limit of the orders in flight of an auto-tune run
+     */
+    public void setConcurrencyLimit(AdaptiveConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
     }
 
-    private String[] getOrderIdAndDateTime(String dateFormat, String dateIni, int num) {
-        String[] strDates = new String[2];
-        Calendar cal = Calendar.getInstance();
-        SimpleDateFormat formatIni = new SimpleDateFormat(dateFormat);
-        Date dateCal = null;
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
 
-        try {
-            dateCal = formatIni.parse(dateIni);
-            // set calendar datetime and adds num seconds
-            cal.setTime(dateCal);
-            LOGGER.info ("SECONDS to ADD " + num);
-            cal.add(Calendar.SECOND, num);
-
-            // get DateTime in Z format
-            strDates[0] = getDateTimeZFormat(cal.getTime());
-            // get orderId from cal Date
-            strDates[1] = getOrderIdFromDate(cal);
-        } catch (ParseException parseEx) {
-            LOGGER.log(Level.SEVERE, "ERROR: ParseException - " + parseEx.getMessage());
-        }
+    /**
+     * @return the pacer of an open-loop run, null for a closed-loop run
+     */
+    public OrderPacer getPacer() {
+        return pacer;
+    }
 
-        return strDates;
-    }
-
-    private int genNumber(int low, int high) {
-        Random r = new Random();
-        return r.nextInt(high - low) + low;
-    }
-
-    private String genPaymentMethod(int typeCard) {
-        String cardType = "VISA";
-        switch (typeCard) {
-            case 0:
-                cardType = "AMEX";
-                break;
-            case 1:
-                cardType = "MASTERCARD";
-                break;
-            case 2:
-                cardType = "VISA";
-                break;
-            default:
-                cardType = "CASH";
-                break;
-        }
+    /**
+     * Makes the run continuous: it goes on until durationSeconds, until stopped or, if
+     * num-orders is greater than 0, until num-orders.
+     *
+     * @param durationSeconds run time, 0 to run until stopped
+     */
+    public void setContinuous(long durationSeconds) {
+        this.continuous    = true;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
 
-        return cardType;
+    /**
+     * Time of an order from the start date of the run. Open-loop runs follow the simulated
+     * clock of their schedule, closed-loop runs have one second per order.
+     *
+     * @param index order number in the run
+     * @param startNanos start of the order from the task
+     * @return milliseconds to add to the start date
+     */
+    protected long orderOffsetMillis(long index, long startNanos) {
+        OrderPacer runPacer = pacer;
+        return (runPacer != null) ? runPacer.simulatedMillis(startNanos) : (index + 1) * 1000;
     }
 
-    private String genBasePizza() {
-        String[] size = { "Small", "Medium", "Large", "X-Large" };
-        String[] base = { "BACON SPINACH ALFREDO", "CHEESE BASIC", "HAWAIIAN CHICKEN", "MEAT LOVER", "PEPPERONI",
-                "PREMIUM GARDEN VEGGIE", "SUPREME", "ULTIMATE CHEESE LOVER" };
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
 
-        return size[genNumber(0, size.length)] + " " + base[genNumber(0, base.length)];
+    /**
+     * @param resultListener receives the result of every order as it completes
+     */
+    public void setResultListener(OrderStreamDriver.Listener resultListener) {
+        this.resultListener = resultListener;
     }
 
-    private String[] genToppings() {
-        String[] toppings = { "Tuna", "Onions", "BBQ Sauce", "Tomatos", "Mushrooms" };
-        int index = 0;
-        int[] selected = { 0, 0, 0 };
-        ArrayList<Integer> selectables = new ArrayList<Integer>(5);
-        selectables.add(0);
-        selectables.add(1);
-        selectables.add(2);
-        selectables.add(3);
-        selectables.add(4);
+    /**
+     * @return the totals of the running simulation, null if it hasn't started
+     */
+    public RunStats getRunStats() {
+        OrderStreamDriver runDriver = driver;
+        return (runDriver == null) ? null : runDriver.getStats();
+    }
 
-        // LOGGER.info("INFO:: " + selectables.toString());
-        for (int i = 0; i < 3; i++) {
-            index = genNumber(0, selectables.size());
-            // LOGGER.info("INFO:: " + index);
-            selected[i] = selectables.get(index);
-            selectables.remove(index);
-            // LOGGER.info("INFO:: " + selectables.toString());
-        }
+    /**
+     * Ends the run normally: no more orders are submitted and the submitted ones finish.
+     */
+    public void stop() {
+        stopped = true;
+        OrderStreamDriver runDriver = driver;
+        if (runDriver != null)
+            runDriver.stop();
+    }
 
-        return new String[] { toppings[selected[0]], toppings[selected[1]], toppings[selected[2]] };
-    }
-
-    private String[] genLongLat(){        
-        String coorLong = "-3." + Integer.toString(genNumber(607759, 811779));
-        String coorLat  = "40." + Integer.toString(genNumber(385053, 551042));
-        
-        return new String[] {coorLong,coorLat};
-    }
-    
-    protected JsonObject createJsonPizzaOrder(String dateFormat, String date, int segsCal, String pizzaStatus) {
-        String[] strOrderDate = getOrderIdAndDateTime(dateFormat, date, segsCal);
-        String[] strToppings  = genToppings();
-        String[] strCoords    = genLongLat();
-        int totalPrice        = genNumber(10,20);
-        int originalPrice     = totalPrice + genNumber(0, 3);
-        JsonObject jsonResp   = null; 
-
-        try{
-            JsonObject jsonOBJPaymentBody =  JSON.createObjectBuilder()
-                .add("paymentid", "p" + strOrderDate[1])
-                .add("paymentTime", strOrderDate[0])
-                .add("orderId", strOrderDate[1])
-                .add("paymentMethod", String.valueOf(genPaymentMethod(genNumber(0, 4))))
-                .add("serviceSurvey", String.valueOf(genNumber(1, 6)))
-                .add("totalPaid", String.valueOf(totalPrice))
-                .add("customerId", "sim345")
-                .add("originalPrice", String.valueOf(originalPrice))
-                .build();        
-            JsonObject jsonOBJStreetBody = JSON.createObjectBuilder()            
-                .add("name", "SimStreet")
-                .add("long", strCoords[0])
-                .add("lat", strCoords[1])
-                .build();
-            JsonObject jsonOBJCustomerAddrBody = JSON.createObjectBuilder()            
-                .add("street", jsonOBJStreetBody)            
-                .add("number", String.valueOf(genNumber(1, 100)))
-                .add("door", String.valueOf(genNumber(1, 5)))
-                .add("email", "ivan.smith@sim-email.es")
-                .add("citycode", String.valueOf(genNumber(28001, 28039)))
-                .add("city", "Madrid")            
-                .build();
-            JsonObject jsonOBJPizzaOrderedBody = JSON.createObjectBuilder()                                    
-                .add("baseType", genBasePizza())
-                .add("topping1", strToppings[0])
-                .add("topping2", strToppings[1])
-                .add("topping3", strToppings[2])            
-                .build();
-            JsonObject jsonOBJCustomerIdBody = JSON.createObjectBuilder()                                    
-                .add("telephone", String.valueOf(genNumber(601000000, 678000000)))
-                .add("email", "ivan.smith@sim-email.es")                  
-                .build();
-            JsonObject jsonOBJCustomerId = JSON.createObjectBuilder()                                    
-                .add("customerId", jsonOBJCustomerIdBody)                           
-                .build();
-            JsonObject jsonOBJOrderBody = JSON.createObjectBuilder()
-                .add("dateTimeOrderTaken",strOrderDate[0])
-                .add("takenByEmployee","sim001")
-                .add("customer",jsonOBJCustomerId)
-                .add("pizzaOrdered",jsonOBJPizzaOrderedBody)
-                .add("totalPrice",totalPrice + "$")
-                .add("customerAdress",jsonOBJCustomerAddrBody)  
-                .add("orderId",strOrderDate[1])
-                .add("status",pizzaStatus)                  
-                .build();
-
-            jsonResp = JSON.createObjectBuilder()
-                            .add("order",jsonOBJOrderBody)
-                            .add("payment",jsonOBJPaymentBody)                            
-                            .build();
-        }
-        catch (Exception ex){
-            ex.printStackTrace();
-            jsonResp = JSON.createObjectBuilder()
-                            .add("error",ex.getMessage())
-                            .build();
+    /**
+     * Stops submitting new orders and drops the queued ones. The running ones finish normally.
+     */
+    public void cancel() {
+        cancelled = true;
+        OrderStreamDriver runDriver = driver;
+        if (runDriver != null)
+            runDriver.cancel();
+    }
+
+    /**
+     * Used in the MICROSERVICE mode, an order at the current second.
+     */
+    protected JsonObject createJsonPizzaOrderNow(String pizzaStatus) {
+        return generateOrderNow(pizzaStatus).toJson();
+    }
+
+    /**
+     * The values of an order, to write them with {@link OrderJsonSerializer} without a JsonObject.
+     *
+     * @param offsetMillis time of the order from date, see {@link #orderOffsetMillis(long, long)}
+     * @throws IllegalArgumentException if date doesn't match dateFormat
+     */
+    GeneratedOrder generateOrderAt(String dateFormat, String date, long offsetMillis, String pizzaStatus) {
+        return OrderGenerator.generate(startMillis(dateFormat, date) + offsetMillis, pizzaStatus);
+    }
+
+    GeneratedOrder generateOrderNow(String pizzaStatus) {
+        long now = System.currentTimeMillis();
+        return OrderGenerator.generate(now - Math.floorMod(now, 1000L), pizzaStatus);
+    }
+
+    /**
+     * The date-ini of a run is parsed by its first order, the next ones reuse it.
+     */
+    private long startMillis(String dateFormat, String date) {
+        StartDate start = startDate;
+        if (start == null || !start.date.equals(date) || !start.dateFormat.equals(dateFormat)) {
+            try {
+                start = new StartDate(dateFormat, date, new SimpleDateFormat(dateFormat).parse(date).getTime());
+            }
+            catch (ParseException parseEx) {
+                LOGGER.log(Level.SEVERE, "ERROR: ParseException - " + parseEx.getMessage());
+                throw new IllegalArgumentException("date-ini " + date + " doesn't match date-format " + dateFormat);
+            }
+            startDate = start;
         }
-        
-        return jsonResp;
+        return start.millis;
     }
 
     /**
@@ -230,4 +225,85 @@ public class PizzaOrder {
         Response resp = null;
         return resp;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs numOrders order tasks with an {@link OrderStreamDriver}. The orderId of every
+     * order is kept only when the full list is answered.
+     *
+     * @return json with the orders list, unless summaryOnly, the run summary and the latency of each operation
+     */
+    protected JsonObject runOrders(int numOrders, OrderStreamDriver.Task task) throws Exception {
+        //a continuous run only keeps the summary
+        long runOrders    = (continuous && numOrders <= 0) ? Long.MAX_VALUE : numOrders;
+        String[] orderIds = (summaryOnly || continuous) ? null : new String[numOrders];
+        OrderStreamDriver.Listener listener = (index, orderId, latencyNanos) -> {
+            //a fast-failed order was rejected before its createOrder reached the orchestrator
+            if (!orderId.equals(RunStats.FAST_FAIL))
+                latency.recordNanos(LatencyRecorder.END_TO_END, latencyNanos);
+            if (orderIds != null)
+                orderIds[(int) index] = orderId;
+            if (resultListener != null)
+                resultListener.onResult(index, orderId, latencyNanos);
+        };
+        driver = new OrderStreamDriver(executorService, window, task, listener, pacer);
+        if (cancelled)
+            driver.cancel();
+        if (stopped)
+            driver.stop();
+        if (concurrencyLimit != null)
+            driver.limitConcurrency(concurrencyLimit);
+        LOGGER.info("Tasks Start! numOrders[" + numOrders + "] | window[" + window + "] | open-loop[" + (pacer != null)
+                    + "] | continuous[" + continuous + "] | durationSeconds[" + TimeUnit.NANOSECONDS.toSeconds(durationNanos) + "]");
+        try {
+            driver.submit(runOrders, durationNanos);
+        }
+        finally {
+            afterTasks();
+        }
+        RunStats stats = driver.awaitResults();
+        LOGGER.info("Tasks Ended! " + stats.toJson());
+
+        JsonObjectBuilder result = JSON.createObjectBuilder();
+        if (orderIds != null) {
+            JsonArrayBuilder orders = JSON.createArrayBuilder();
+            for (int order = 0; order < numOrders; order++) {
+                //not run, the run was cancelled
+                if (orderIds[order] == null)
+                    continue;
+                orders.add(JSON.createObjectBuilder().add("order", order).add("orderId", orderIds[order]));
+            }
+            result.add("orders", orders);
+        }
+        result.add("summary", stats.toJson())
+              .add("latency", latency.toJson(stats.getElapsedMillis()));
+        if (concurrencyLimit != null)
+            result.add("auto-tune", concurrencyLimit.toJson());
+        addResults(result);
+        return result.build();
+    }
+
+    /**
+     * Adds the results of the mode to the result of a run.
+     */
+    protected void addResults(JsonObjectBuilder result) {
+    }
+
+    /**
+     * Called when the submit of the run returns, with every result already in, or when
+     * it fails. It only flushes what is left, like the inventory of the run.
+     */
+    protected void afterTasks() throws Exception {
+    }
+
+    private static class StartDate {
+        private final String dateFormat;
+        private final String date;
+        private final long millis;
+
+        StartDate(String dateFormat, String date, long millis) {
+            this.dateFormat = dateFormat;
+            this.date       = date;
+            this.millis     = millis;
+        }
+    }
+}
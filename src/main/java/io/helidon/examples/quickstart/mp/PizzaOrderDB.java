@@ -1,54 +1,38 @@
 package io.helidon.examples.quickstart.mp;
 
-import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.json.Json;
-import javax.json.JsonArrayBuilder;
 import javax.json.JsonBuilderFactory;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.ws.rs.core.Response;
 
+import oracle.ucp.jdbc.PoolDataSource;
+
 
 public class PizzaOrderDB extends PizzaOrder {
     private static final Logger LOGGER = Logger.getLogger(PizzaOrderDB.class.getName());
     private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
 
-    private String dbUser             = "";
-    private String dbPassword         = "";
-    private String dbUrl              = "";
-    private String clientCred         = ""; 
-    private String keystorePassword   = ""; 
-    private String truststorePassword = ""; 
+    private final DatabasePoolManager poolManager;
+    private final DatabaseConfig dbConfig;
 
-    private int seconds = 1;
+    private OrderSink sink;
 
     public PizzaOrderDB(int minThreads, int maxThreads, 
-                      String dbUrl, String dbUser, String dbPass, 
-                      String clientCred,
-                      String keystorePassword,
-                      String truststorePassword){
-
-        super(minThreads, maxThreads);
-
-        this.truststorePassword = truststorePassword;        
-        this.keystorePassword   = keystorePassword;
-        
-        this.clientCred = clientCred;        
-        this.dbUrl      = dbUrl;          
-        this.dbUser     = dbUser;
-        this.dbPassword = dbPass;       
+                      ExecutorService executorService,
+                      DatabasePoolManager poolManager,
+                      DatabaseConfig dbConfig){
+
+        super(minThreads, maxThreads, executorService);
+
+        this.poolManager = poolManager;
+        this.dbConfig    = dbConfig;
     }
 
     /**
@@ -58,13 +42,11 @@ public class PizzaOrderDB extends PizzaOrder {
      */
     public Response createOrders(String dateFormat, String date, int numOrders, String pizzaStatus) {
         Response resp;
-        JsonArrayBuilder orders = Json.createArrayBuilder();
-        //SimpleDateFormat sdf    = new SimpleDateFormat(dateFormat);
         try {
             LOGGER.info("DATE-INI: " + date);
-            orders = createOrdersWithDataBase(dateFormat,date,numOrders,pizzaStatus);
+            JsonObject orders = createOrdersWithDataBase(dateFormat,date,numOrders,pizzaStatus);
             resp = Response.status(Response.Status.ACCEPTED)
-                        .entity(Json.createObjectBuilder().add("orders",orders).build())
+                        .entity(orders)
                         .build();
         }
         catch (Exception ex){
@@ -78,31 +60,22 @@ public class PizzaOrderDB extends PizzaOrder {
         return resp;
     }
 
-    private JsonArrayBuilder createOrdersWithDataBase (String dateFormat, String date, int numOrders, String pizzaStatus) throws Exception {
-        JsonArrayBuilder orders = Json.createArrayBuilder();
-        //SimpleDateFormat sdf    = new SimpleDateFormat(dateFormat);
+    private JsonObject createOrdersWithDataBase (String dateFormat, String date, int numOrders, String pizzaStatus) throws Exception {
+        sink = createSink();
 
-        LOGGER.info("ThreadPoolCreation: minThreads["+minThreads+"] | maxThreads["+maxThreads+"]" );
-        ExecutorService executorService = new ThreadPoolExecutor(minThreads, maxThreads, 0L, TimeUnit.MICROSECONDS, new LinkedBlockingQueue<Runnable>()); 
-        
         //Create Pizza Order Database Task.
-        Callable<String> callableTaskDb = () -> {
+        OrderStreamDriver.Task taskDb = (index, orderStartNanos) -> {
             String orderId = null;            
             try {                                                
-                JsonObject jsonPizzaOrder = createJsonPizzaOrder(dateFormat, date, seconds++, pizzaStatus);
-                //LOGGER.info("PIZZA ORDER ["+Thread.currentThread().getId()+"]: " + pizzaOrder);
-                JsonObject pizzaPayment = jsonPizzaOrder.getJsonObject("payment");
-                JsonObject pizzaOrder   = jsonPizzaOrder.getJsonObject("order");
-                orderId = pizzaOrder.getString("orderId");
-                LOGGER.info("PIZZA Payment ["+Thread.currentThread().getId()+"]: " + pizzaPayment.toString());                                
-                LOGGER.info("PIZZA Order   ["+Thread.currentThread().getId()+"]: " + pizzaOrder.toString());
-
-                DatabaseClient dbClient = new DatabaseClient(dbUrl,dbUser,dbPassword,clientCred,keystorePassword,truststorePassword);
-                LOGGER.info("dbClient Created created");
-                LOGGER.info(dbClient.executeInsertOrder(pizzaOrder));
-                LOGGER.info(dbClient.executeInsertPayment(pizzaPayment));
-                LOGGER.info(dbClient.executeUpdateIngredients(pizzaOrder));
-                LOGGER.info(dbClient.executeUpdateBasePizza(pizzaOrder));
+                //the order date is date-ini plus the simulated clock, or one second per order
+                long startNanos = System.nanoTime();
+                GeneratedOrder order = generateOrderAt(dateFormat, date, orderOffsetMillis(index, orderStartNanos), pizzaStatus);
+                latency.record(LatencyRecorder.GENERATE, startNanos);
+                orderId = order.orderId;
+                if (LOGGER.isLoggable(Level.INFO))
+                    LOGGER.info("PIZZA Order   ["+Thread.currentThread().threadId()+"]: " + OrderJsonSerializer.toString(order));
+
+                return sink.write(order);
             }
             catch (Exception ex){
                 ex.printStackTrace();
@@ -110,30 +83,42 @@ public class PizzaOrderDB extends PizzaOrder {
                 orderId = "false";
             }
 
-            return orderId.toString();
+            return CompletableFuture.completedFuture(orderId);
         };
-                
-        List<Callable<String>> callableTasksDb = new ArrayList<>();
-        for (int task=0;task<numOrders;task++){
-            callableTasksDb.add(callableTaskDb);
-        }
-        LocalDateTime dIni = LocalDateTime.now();
-        LOGGER.info("Tasks Start! at " + dIni);
-        List<Future<String>> futureList = executorService.invokeAll(callableTasksDb); 
-        //orders.add(futureList.get(0).get());
-        executorService.shutdown();   
-        //executorService.awaitTermination();
-        for (int task=0;task<numOrders;task++){
-            orders.add(JSON.createObjectBuilder().add("order",task).add("orderId",futureList.get(task).get()));
-        }
-        
-        LocalDateTime dEnd = LocalDateTime.now();
-        LOGGER.info("Task Ended! at " + dEnd);
-        Duration duration = Duration.between(dEnd, dIni);
-        long diffMin = Math.abs(duration.toMinutes());            
-        long diffSec = Math.abs(duration.toSeconds()) - (diffMin*60); 
-        LOGGER.info("Time Taken! -- " + diffMin + " minutes " + diffSec + " seconds");
-
-        return orders;
+
+        return runOrders(numOrders, taskDb);
+    }
+
+    /**
+     * The sink of the sim-config, on the shared pool of the database for oracle and jdbc.
+     */
+    private OrderSink createSink() throws Exception {
+        if (dbConfig.getSink().equals(DatabaseConfig.MEMORY_SINK))
+            return new InMemoryOrderSink();
+
+        //Shared pool for all the tasks, connections stay open between simulations.
+        PoolDataSource poolDataSource = poolManager.getPoolDataSource(dbConfig);
+        poolManager.warmUp(poolDataSource, dbConfig.getInitialPoolSize());
+        if (dbConfig.isInitSchema())
+            MicroserviceSchema.create(poolDataSource);
+        //Exact storage keys of the generated base pizzas and toppings.
+        InventoryCatalog catalog = poolManager.getInventoryCatalog(dbConfig, poolDataSource);
+        return new JdbcOrderSink(poolDataSource, catalog, dbConfig, maxThreads, latency);
+    }
+
+    /**
+     * Closes the sink, flushing what is left of the run, like its aggregated inventory.
+     */
+    @Override
+    protected void afterTasks() throws Exception {
+        if (sink != null)
+            sink.close();
+    }
+
+    @Override
+    protected void addResults(JsonObjectBuilder result) {
+        JsonObject sinkResults = (sink != null) ? sink.toJson() : null;
+        if (sinkResults != null)
+            result.add("sink", sinkResults);
     }
-}
\ No newline at end of file
+}
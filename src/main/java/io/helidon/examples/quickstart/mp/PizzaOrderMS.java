@@ -1,55 +1,66 @@
 package io.helidon.examples.quickstart.mp;
 
-import java.util.Date;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.net.URI;
-import java.text.SimpleDateFormat;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.json.Json;
-import javax.json.JsonArrayBuilder;
 import javax.json.JsonBuilderFactory;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.json.JsonValue;
 import javax.ws.rs.core.Response;
 
-import org.eclipse.microprofile.rest.client.RestClientBuilder;
-
 public class PizzaOrderMS extends PizzaOrder{
     private static final Logger LOGGER = Logger.getLogger(PizzaOrderMS.class.getName());
     private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
 
     private OrderService msOrchestrator = null;
+    private OrchestratorTransport transport = null;
+    private boolean asyncClient         = false;
+    private OrchestratorGuard guard     = null;
+
+    /**
+     * @param msOrchestrator the cached client of the orchestrator, see {@link OrchestratorClientManager}
+     */
+    public PizzaOrderMS(int minThreads, int maxThreads, ExecutorService executorService, OrderService msOrchestrator){
+        super (minThreads, maxThreads, executorService);
+        this.msOrchestrator = msOrchestrator;
+    }
 
-    public PizzaOrderMS(int minThreads, int maxThreads, String baseURL, int connTimeout, int respTimeout){
-        super (minThreads, maxThreads);
+    /**
+     * @param transport the cached "jdk-http" transport of the orchestrator, used instead of the RestClient
+     */
+    public PizzaOrderMS(int minThreads, int maxThreads, ExecutorService executorService, OrchestratorTransport transport){
+        super (minThreads, maxThreads, executorService);
+        this.transport = transport;
+    }
 
-        //Create RestClient object to send rest commands to microservice orchestrator:
-        LOGGER.info("Creating RestClient. base URL: " + baseURL);
+    /**
+     * @param asyncClient true to chain createOrder and changeStatus as async calls, the
+     *                    order task returns at once and its result comes with the responses
+     */
+    public void setAsyncClient(boolean asyncClient) {
+        this.asyncClient = asyncClient;
+    }
 
-        //To avoid problem if we change to DB connection.
-        System.clearProperty("javax.net.ssl.keyStore");
-        System.clearProperty("javax.net.ssl.keyStorePassword");
-        System.clearProperty("javax.net.ssl.trustStore");
-        System.clearProperty("javax.net.ssl.trustStorePassword");
+    /**
+     * @param guard bulkhead and circuit breaker of the orchestrator calls of the run, null for none
+     */
+    public void setGuard(OrchestratorGuard guard) {
+        this.guard = guard;
+    }
 
-        this.msOrchestrator = RestClientBuilder.newBuilder().baseUri(URI.create(baseURL))
-                                            .connectTimeout(connTimeout, TimeUnit.MILLISECONDS)
-                                            .readTimeout(respTimeout, TimeUnit.MILLISECONDS)
-                                            .build(OrderService.class);
-        LOGGER.info(this.msOrchestrator.version().toString());
-        LOGGER.info("RestClient Created.");         
+    @Override
+    protected void addResults(JsonObjectBuilder result) {
+        if (guard != null)
+            result.add("fault-tolerance", guard.toJson());
     }
 
     /**
@@ -68,13 +79,11 @@ public class PizzaOrderMS extends PizzaOrder{
      */
     public Response createOrders(String dateFormat, String date, int numOrders, String pizzaStatus) {
         Response resp;
-        JsonArrayBuilder orders = Json.createArrayBuilder();
-        //SimpleDateFormat sdf    = new SimpleDateFormat(dateFormat);
         try {
-            orders = createOrdersWithMicroservices(dateFormat,numOrders,pizzaStatus);
+            JsonObject orders = createOrdersWithMicroservices(numOrders,pizzaStatus);
             //LOGGER.info("orderreturn: " + msOrchestrator.createOrder().toString());
             resp = Response.status(Response.Status.ACCEPTED)
-                        .entity(Json.createObjectBuilder().add("orders",orders).build())
+                        .entity(orders)
                         .build();
         }
         catch (Exception ex){
@@ -88,67 +97,132 @@ public class PizzaOrderMS extends PizzaOrder{
         return resp;
     }
 
-    private JsonArrayBuilder createOrdersWithMicroservices(String dateFormat, int numOrders, String pizzaStatus) throws Exception {
-        JsonArrayBuilder orders = Json.createArrayBuilder();
-        SimpleDateFormat sdf    = new SimpleDateFormat(dateFormat);
-
-        LOGGER.info("ThreadPoolCreation: minThreads["+minThreads+"] | maxThreads["+maxThreads+"]" );
-        ExecutorService executorService = new ThreadPoolExecutor(minThreads, maxThreads, 0L, TimeUnit.MICROSECONDS, new LinkedBlockingQueue<Runnable>()); 
+    private JsonObject createOrdersWithMicroservices(int numOrders, String pizzaStatus) throws Exception {
+        if (transport != null) {
+            String statusJson = Json.createValue(pizzaStatus).toString();
+            return runOrders(numOrders, (index, orderStartNanos) -> {
+                CompletionStage<String> result = createOrderWithTransport(pizzaStatus, statusJson);
+                // without async-client the simulator thread waits for the calls, like the RestClient ones
+                return asyncClient ? result : CompletableFuture.completedFuture(result.toCompletableFuture().join());
+            });
+        }
+        if (asyncClient)
+            return runOrders(numOrders, (index, orderStartNanos) -> createOrderAsync(pizzaStatus));
 
         //Create Pizza Order Task.
-        Callable<String> callableTaskMicroservice = () -> {
+        OrderStreamDriver.Task taskMicroservice = (index, orderStartNanos) -> {
             JsonValue orderId = null;
-            try {                                                
-                JsonObject pizzaOrder = createJsonPizzaOrder(dateFormat, sdf.format(new Date()), 0, pizzaStatus);
-                LOGGER.info("PIZZA ORDER ["+Thread.currentThread().getId()+"]: Pizza Order to Create: " + pizzaOrder);
+            try {
+                long startNanos = System.nanoTime();
+                JsonObject pizzaOrder = createJsonPizzaOrderNow(pizzaStatus);
+                latency.record(LatencyRecorder.GENERATE, startNanos);
+                LOGGER.info("PIZZA ORDER ["+Thread.currentThread().threadId()+"]: Pizza Order to Create: " + pizzaOrder);
                 if (msOrchestrator == null) 
-                    LOGGER.info("PIZZA ORDER ["+Thread.currentThread().getId()+"]: msOrchestrator null");
-                JsonObject pizzaOrderResp = msOrchestrator.createOrder(pizzaOrder);
-                LOGGER.info("PIZZA ORDER ["+Thread.currentThread().getId()+"]: Pizza Created" + pizzaOrderResp);
+                    LOGGER.info("PIZZA ORDER ["+Thread.currentThread().threadId()+"]: msOrchestrator null");
+                startNanos = System.nanoTime();
+                JsonObject pizzaOrderResp = call(() -> msOrchestrator.createOrder(pizzaOrder));
+                latency.record(LatencyRecorder.CREATE_ORDER, startNanos);
+                LOGGER.info("PIZZA ORDER ["+Thread.currentThread().threadId()+"]: Pizza Created" + pizzaOrderResp);
                 orderId = pizzaOrderResp.getJsonObject("resJSONDB").getValue("/orderId");
-                //orders.add(pizzaOrder);
-                //orders.add(pizzaOrderResp);
                 JsonObject updateStatus = JSON.createObjectBuilder()
                                             .add("orderId",orderId)
                                             .add("status",pizzaStatus)
                                             .build();
                 
-                LOGGER.info("PIZZA RESP ["+Thread.currentThread().getId()+"]: " + updateStatus);
-                //orders.add(msOrchestrator.changeStatus(updateStatus));
-                LOGGER.info("PIZZA RESP ["+Thread.currentThread().getId()+"]: " + msOrchestrator.changeStatus(updateStatus));
-                //JsonObject respStatus = msOrchestrator.changeStatus(updateStatus);
+                LOGGER.info("PIZZA RESP ["+Thread.currentThread().threadId()+"]: " + updateStatus);
+                startNanos = System.nanoTime();
+                JsonObject statusResp = call(() -> msOrchestrator.changeStatus(updateStatus));
+                latency.record(LatencyRecorder.CHANGE_STATUS, startNanos);
+                LOGGER.info("PIZZA RESP ["+Thread.currentThread().threadId()+"]: " + statusResp);
             }
             catch (Exception ex){
+                //only a rejected createOrder leaves the orchestrator untouched
+                if (orderId == null && OrchestratorGuard.isRejected(ex))
+                    return CompletableFuture.completedFuture(RunStats.FAST_FAIL);
                 ex.printStackTrace();
                 LOGGER.log(Level.SEVERE, "ERROR Task " + ex.getMessage());                
                 orderId = JsonValue.FALSE;          
             }
 
-            return orderId.toString();
+            return CompletableFuture.completedFuture(orderId.toString());
         };
-        
-        
-        List<Callable<String>> callableTasks = new ArrayList<>();
-        for (int task=0;task<numOrders;task++){
-            callableTasks.add(callableTaskMicroservice);
-        }
-        LocalDateTime dIni = LocalDateTime.now();
-        LOGGER.info("Task Start! at " + dIni);
-        List<Future<String>> futureList = executorService.invokeAll(callableTasks); 
-        //orders.add(futureList.get(0).get());
-        executorService.shutdown();   
-        //executorService.awaitTermination();
-        for (int task=0;task<numOrders;task++){
-            orders.add(JSON.createObjectBuilder().add("order",task).add("orderId",futureList.get(task).get()));
-        }
-        
-        LocalDateTime dEnd = LocalDateTime.now();
-        LOGGER.info("Task Ended! at " + dEnd);
-        Duration duration = Duration.between(dEnd, dIni);
-        long diffMin = Math.abs(duration.toMinutes());            
-        long diffSec = Math.abs(duration.toSeconds()) - (diffMin*60); 
-        LOGGER.info("Time Taken! -- " + diffMin + " minutes " + diffSec + " seconds");
-        
-        return orders;
+
+        return runOrders(numOrders, taskMicroservice);
+    }
+
+    /**
+     * Sends createOrder and, when its response arrives, changeStatus, without waiting
+     * for any of them: the simulator thread is free as soon as the order is generated.
+     *
+     * @return stage completed with the orderId, "false" if a call failed, RunStats.FAST_FAIL if createOrder was rejected
+     */
+    private CompletionStage<String> createOrderAsync(String pizzaStatus) {
+        long startNanos = System.nanoTime();
+        JsonObject pizzaOrder = createJsonPizzaOrderNow(pizzaStatus);
+        latency.record(LatencyRecorder.GENERATE, startNanos);
+        LOGGER.info("PIZZA ORDER ["+Thread.currentThread().threadId()+"]: Pizza Order to Create: " + pizzaOrder);
+
+        long createNanos = System.nanoTime();
+        return callAsync(() -> msOrchestrator.createOrderAsync(pizzaOrder)).thenCompose(pizzaOrderResp -> {
+            latency.record(LatencyRecorder.CREATE_ORDER, createNanos);
+            LOGGER.info("PIZZA ORDER ["+Thread.currentThread().threadId()+"]: Pizza Created" + pizzaOrderResp);
+            JsonValue orderId = pizzaOrderResp.getJsonObject("resJSONDB").getValue("/orderId");
+            JsonObject updateStatus = JSON.createObjectBuilder()
+                                        .add("orderId",orderId)
+                                        .add("status",pizzaStatus)
+                                        .build();
+            long statusNanos = System.nanoTime();
+            return callAsync(() -> msOrchestrator.changeStatusAsync(updateStatus)).thenApply(statusResp -> {
+                latency.record(LatencyRecorder.CHANGE_STATUS, statusNanos);
+                LOGGER.info("PIZZA RESP ["+Thread.currentThread().threadId()+"]: " + statusResp);
+                return orderId.toString();
+            }).exceptionally(PizzaOrderMS::changeStatusFailed);
+        }).exceptionally(PizzaOrderMS::failedResult);
+    }
+
+    /**
+     * Sends createOrder and changeStatus with the {@link OrchestratorTransport}, the
+     * order written to bytes by {@link OrderJsonSerializer} without a JsonObject and the
+     * orderId read from the response stream.
+     *
+     * @param statusJson pizzaStatus as a JSON string
+     * @return stage completed with the orderId, "false" if a call failed, RunStats.FAST_FAIL if createOrder was rejected
+     */
+    private CompletionStage<String> createOrderWithTransport(String pizzaStatus, String statusJson) {
+        long startNanos = System.nanoTime();
+        byte[] body = OrderJsonSerializer.toBytes(generateOrderNow(pizzaStatus));
+        latency.record(LatencyRecorder.GENERATE, startNanos);
+
+        long createNanos = System.nanoTime();
+        return callAsync(() -> transport.createOrder(body)).thenCompose(orderId -> {
+            latency.record(LatencyRecorder.CREATE_ORDER, createNanos);
+            byte[] updateStatus = ("{\"orderId\":" + orderId + ",\"status\":" + statusJson + "}").getBytes(StandardCharsets.UTF_8);
+            long statusNanos = System.nanoTime();
+            return callAsync(() -> transport.changeStatus(updateStatus)).thenApply(done -> {
+                latency.record(LatencyRecorder.CHANGE_STATUS, statusNanos);
+                return orderId;
+            }).exceptionally(PizzaOrderMS::changeStatusFailed);
+        }).exceptionally(PizzaOrderMS::failedResult);
+    }
+
+    private <T> T call(Callable<T> call) throws Exception {
+        return (guard == null) ? call.call() : guard.call(call);
+    }
+
+    private <T> CompletionStage<T> callAsync(Supplier<CompletionStage<T>> call) {
+        return (guard == null) ? call.get() : guard.callAsync(call);
+    }
+
+    // the order was created, so it failed even if changeStatus was rejected
+    private static String changeStatusFailed(Throwable ex) {
+        LOGGER.log(Level.SEVERE, "ERROR changeStatus " + ex.getMessage());
+        return JsonValue.FALSE.toString();
+    }
+
+    private static String failedResult(Throwable ex) {
+        if (OrchestratorGuard.isRejected(ex))
+            return RunStats.FAST_FAIL;
+        LOGGER.log(Level.SEVERE, "ERROR Task " + ex.getMessage());
+        return JsonValue.FALSE.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Target rate of an open-loop simulation as a piecewise-linear function of time, in
+ * orders per second. Order i is scheduled at the time the integral of the rate
+ * reaches i, so the start times only depend on the schedule, never on how fast the
+ * previous orders finished.
+ *
+ * The segments are compiled once with the orders at their start, so finding the start
+ * of an order is a binary search plus a closed formula, whatever the profile length.
+ */
+public final class RateSchedule {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Segment[] segments;
+
+    private RateSchedule(List<Segment> segments) {
+        this.segments = segments.toArray(new Segment[0]);
+    }
+
+    /**
+     * Rate that grows linearly from 0 to ordersPerSecond in rampUpSeconds, then stays.
+     *
+     * @param ordersPerSecond target rate
+     * @param rampUpSeconds ramp up duration, 0 to start at the target rate
+     * @return the schedule
+     */
+    static RateSchedule rampUp(double ordersPerSecond, double rampUpSeconds) {
+        Builder builder = new Builder();
+        if (rampUpSeconds > 0)
+            builder.segment(rampUpSeconds, 0, ordersPerSecond);
+        return builder.constant(ordersPerSecond);
+    }
+
+    /**
+     * @param index order number, from 0
+     * @return start of the order from the start of the run in nanoseconds,
+     *         Long.MAX_VALUE if the schedule never reaches it
+     */
+    long startOffsetNanos(long index) {
+        Segment segment = segmentOf(index);
+        if (segment == null || !segment.contains(index))
+            return Long.MAX_VALUE;
+
+        double seconds = segment.secondsTo(index);
+        if (Double.isNaN(seconds) || seconds * NANOS_PER_SECOND >= Long.MAX_VALUE - segment.startNanos)
+            return Long.MAX_VALUE;
+        return segment.startNanos + Math.round(seconds * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Binary search of the last segment starting at or before index. Segments without
+     * orders, like a zero rate, start at the same order as the next one and are skipped.
+     */
+    private Segment segmentOf(long index) {
+        int low  = 0;
+        int high = segments.length - 1;
+        Segment found = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (segments[middle].startOrders <= index) {
+                found = segments[middle];
+                low   = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param offsetNanos time from the start of the run
+     * @return target orders per second at that time
+     */
+    double rateAt(long offsetNanos) {
+        for (Segment segment : segments) {
+            if (offsetNanos < segment.startNanos + segment.durationNanos)
+                return segment.rateAt((offsetNanos - segment.startNanos) / NANOS_PER_SECOND);
+        }
+        return 0;
+    }
+
+    /**
+     * Builds the schedule segment by segment, each one starting where the previous ends.
+     */
+    static class Builder {
+        private final List<Segment> segments = new ArrayList<>();
+        private long startNanos = 0;
+        private double startOrders = 0;
+
+        /**
+         * @param seconds duration of the segment
+         * @param startRate orders per second at its start
+         * @param endRate orders per second at its end
+         * @return this builder
+         */
+        Builder segment(double seconds, double startRate, double endRate) {
+            Segment segment = new Segment(startNanos, Math.round(seconds * NANOS_PER_SECOND), startOrders,
+                                          seconds, startRate, endRate);
+            segments.add(segment);
+            startNanos  += segment.durationNanos;
+            startOrders += segment.orders();
+            return this;
+        }
+
+        /**
+         * Ends the schedule with an endless constant rate.
+         *
+         * @param ordersPerSecond the rate after the last segment
+         * @return the schedule
+         */
+        RateSchedule constant(double ordersPerSecond) {
+            segments.add(new Segment(startNanos, Long.MAX_VALUE - startNanos, startOrders,
+                                     Double.POSITIVE_INFINITY, ordersPerSecond, ordersPerSecond));
+            return new RateSchedule(new ArrayList<>(segments));
+        }
+
+        /**
+         * Ends the schedule with the last segment, no order is scheduled after it.
+         *
+         * @return the schedule
+         */
+        RateSchedule build() {
+            return new RateSchedule(new ArrayList<>(segments));
+        }
+    }
+
+    private static final class Segment {
+        private final long startNanos;
+        private final long durationNanos;
+        private final double startOrders;
+        private final double seconds;
+        private final double startRate;
+        // rate(t) = startRate + 2 * halfSlope * t, orders(t) = startRate * t + halfSlope * t^2
+        private final double halfSlope;
+
+        Segment(long startNanos, long durationNanos, double startOrders, double seconds, double startRate, double endRate) {
+            this.startNanos    = startNanos;
+            this.durationNanos = durationNanos;
+            this.startOrders   = startOrders;
+            this.seconds       = seconds;
+            this.startRate     = startRate;
+            this.halfSlope     = Double.isInfinite(seconds) ? 0 : (endRate - startRate) / (2 * seconds);
+        }
+
+        double orders() {
+            if (Double.isInfinite(seconds))
+                return (startRate > 0) ? Double.POSITIVE_INFINITY : 0;
+            return startRate * seconds + halfSlope * seconds * seconds;
+        }
+
+        boolean contains(long index) {
+            return index >= startOrders && index < startOrders + orders();
+        }
+
+        double rateAt(double t) {
+            return startRate + 2 * halfSlope * t;
+        }
+
+        /**
+         * @return seconds from the start of the segment until the order count reaches index
+         */
+        double secondsTo(long index) {
+            double orders = index - startOrders;
+            if (halfSlope == 0)
+                return orders / startRate;
+            // halfSlope * t^2 + startRate * t - orders = 0
+            double discriminant = Math.max(0, startRate * startRate + 4 * halfSlope * orders);
+            return (-startRate + Math.sqrt(discriminant)) / (2 * halfSlope);
+        }
+    }
+}
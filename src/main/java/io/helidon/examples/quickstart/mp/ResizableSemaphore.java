@@ -0,0 +1,20 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Semaphore whose number of permits can be lowered while permits are taken, the
+ * taken ones are returned normally and only the new acquires see the lower limit.
+ */
+class ResizableSemaphore extends Semaphore {
+    private static final long serialVersionUID = 1L;
+
+    ResizableSemaphore(int permits) {
+        super(permits);
+    }
+
+    @Override
+    protected void reducePermits(int reduction) {
+        super.reducePermits(reduction);
+    }
+}
@@ -0,0 +1,117 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+
+/**
+ * Running totals of a simulation, updated by the task threads as the orders finish.
+ */
+public class RunStats {
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    /**
+     * Result of an order not sent because the orchestrator calls were rejected, see
+     * {@link OrchestratorGuard}. It is not a failed order and it is not in orders-per-second.
+     */
+    static final String FAST_FAIL = "fast-fail";
+
+    private volatile long numOrders;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder failed  = new LongAdder();
+    private final LongAdder fastFailed = new LongAdder();
+    private final long startNanos;
+
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder missedSchedule = new LongAdder();
+
+    private volatile long endNanos;
+
+    RunStats(long numOrders) {
+        this.numOrders  = numOrders;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param orders orders of a run that ended before numOrders, see OrderStreamDriver.stop()
+     */
+    void setNumOrders(long orders) {
+        numOrders = orders;
+    }
+
+    /**
+     * @param orderId the result of an order, "false" when it failed, FAST_FAIL when it was rejected
+     */
+    void record(String orderId) {
+        if (orderId == null || orderId.equals("false"))
+            failed.increment();
+        else if (orderId.equals(FAST_FAIL))
+            fastFailed.increment();
+        else
+            created.increment();
+    }
+
+    /**
+     * @param orders orders not run because the run was cancelled
+     */
+    void cancel(long orders) {
+        cancelled.add(orders);
+    }
+
+    /**
+     * An order of an open-loop run that started later than its intended start.
+     */
+    void missSchedule() {
+        missedSchedule.increment();
+    }
+
+    void end() {
+        endNanos = System.nanoTime();
+    }
+
+    long getCreated() {
+        return created.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    long getFastFailed() {
+        return fastFailed.sum();
+    }
+
+    long getCancelled() {
+        return cancelled.sum();
+    }
+
+    long getMissedSchedule() {
+        return missedSchedule.sum();
+    }
+
+    /**
+     * @return run time until now, or until the end of the run
+     */
+    long getElapsedMillis() {
+        long end = (endNanos == 0) ? System.nanoTime() : endNanos;
+        return (end - startNanos) / 1_000_000;
+    }
+
+    JsonObject toJson() {
+        long elapsedMillis = getElapsedMillis();
+        long finished      = getCreated() + getFailed();
+        return JSON.createObjectBuilder()
+                   .add("num-orders", numOrders)
+                   .add("created", getCreated())
+                   .add("failed", getFailed())
+                   .add("fast-failed", getFastFailed())
+                   .add("cancelled", getCancelled())
+                   .add("missed-schedule", getMissedSchedule())
+                   .add("elapsed-ms", elapsedMillis)
+                   .add("orders-per-second", (elapsedMillis == 0) ? 0 : finished * 1000 / elapsedMillis)
+                   .build();
+    }
+}
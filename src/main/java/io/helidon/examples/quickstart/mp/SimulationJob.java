@@ -0,0 +1,165 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.core.Response;
+
+/**
+ * A simulation started with "async": true. The /simulator POST returns its id at once
+ * and the progress is read with GET /simulator/jobs/{id} while the orders run in a
+ * job thread. Continuous simulations always run as jobs, so they can be stopped and
+ * retuned while they go on.
+ */
+public class SimulationJob {
+    private static final Logger LOGGER = Logger.getLogger(SimulationJob.class.getName());
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final PizzaOrder pizzaOrder;
+    private final long createdMillis;
+
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelRequested = false;
+    private volatile JsonObject result;
+    private volatile long finishedMillis;
+
+    // last progress poll, to answer the throughput since then
+    private long sampleNanos;
+    private long sampleOrders;
+
+    SimulationJob(String id, PizzaOrder pizzaOrder) {
+        this.id            = id;
+        this.pizzaOrder    = pizzaOrder;
+        this.createdMillis = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    boolean isFinished() {
+        return finishedMillis != 0;
+    }
+
+    long getFinishedMillis() {
+        return finishedMillis;
+    }
+
+    /**
+     * Runs the simulation in the calling thread.
+     *
+     * @param simulation the createOrders call of the pizzaOrder
+     */
+    void run(Callable<Response> simulation) {
+        if (cancelRequested) {
+            finish(State.CANCELLED, null);
+            return;
+        }
+
+        state = State.RUNNING;
+        LOGGER.info("Job " + id + " started");
+        try {
+            Response resp = simulation.call();
+            RunStats stats = pizzaOrder.getRunStats();
+            //a cancel that came after the last order had started didn't stop anything
+            boolean cancelled = stats != null && stats.getCancelled() > 0;
+            State endState = (resp.getStatus() != Response.Status.ACCEPTED.getStatusCode()) ? State.FAILED
+                             : cancelled ? State.CANCELLED : State.COMPLETED;
+            finish(endState, (JsonObject) resp.getEntity());
+        }
+        catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "ERROR Job " + id + " " + ex.getMessage());
+            finish(State.FAILED, JSON.createObjectBuilder().add("error", String.valueOf(ex.getMessage())).build());
+        }
+    }
+
+    /**
+     * Stops submitting orders and drops the queued ones, the running ones finish before the job ends.
+     */
+    public void cancel() {
+        if (isFinished())
+            return;
+
+        LOGGER.info("Job " + id + " cancel requested");
+        cancelRequested = true;
+        pizzaOrder.cancel();
+    }
+
+    /**
+     * Ends a continuous job normally: no more orders are submitted, the submitted ones
+     * finish and the job is COMPLETED.
+     */
+    public void stop() {
+        if (isFinished())
+            return;
+
+        LOGGER.info("Job " + id + " stop requested");
+        pizzaOrder.stop();
+    }
+
+    PizzaOrder getPizzaOrder() {
+        return pizzaOrder;
+    }
+
+    public JsonObject toJson() {
+        JsonObjectBuilder job = JSON.createObjectBuilder()
+                                    .add("job-id", id)
+                                    .add("state", state.name())
+                                    .add("created-ms", createdMillis);
+        RunStats stats = pizzaOrder.getRunStats();
+        if (stats != null) {
+            job.add("completed", stats.getCreated())
+               .add("failed", stats.getFailed())
+               .add("elapsed-ms", stats.getElapsedMillis())
+               .add("orders-per-second", currentOrdersPerSecond(stats));
+        }
+        OrderPacer pacer = pizzaOrder.getPacer();
+        if (pacer != null && !isFinished())
+            job.add("target-orders-per-second", pacer.currentRate());
+        AdaptiveConcurrencyLimit concurrencyLimit = pizzaOrder.getConcurrencyLimit();
+        if (concurrencyLimit != null && !isFinished())
+            job.add("concurrency-limit", concurrencyLimit.getLimit());
+        if (result != null)
+            job.add("result", result);
+        return job.build();
+    }
+
+    private void finish(State endState, JsonObject endResult) {
+        result         = endResult;
+        state          = endState;
+        finishedMillis = System.currentTimeMillis();
+        LOGGER.info("Job " + id + " " + endState);
+    }
+
+    /**
+     * @return orders per second since the previous poll, or since the start on the first one
+     */
+    private synchronized long currentOrdersPerSecond(RunStats stats) {
+        long now    = System.nanoTime();
+        long orders = stats.getCreated() + stats.getFailed();
+        long rate;
+        if (isFinished() || sampleNanos == 0 || now - sampleNanos < 1_000_000) {
+            long elapsedMillis = stats.getElapsedMillis();
+            rate = (elapsedMillis == 0) ? 0 : orders * 1000 / elapsedMillis;
+        }
+        else {
+            rate = (orders - sampleOrders) * 1_000_000_000L / (now - sampleNanos);
+        }
+        sampleNanos  = now;
+        sampleOrders = orders;
+        return rate;
+    }
+}
@@ -0,0 +1,93 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * The async simulation jobs. Each job runs in its own thread, which only submits the
+ * orders to the simulator executor. Finished jobs are kept jobRetentionSeconds, and no
+ * more than maxFinishedJobs of them, so their result can still be read.
+ */
+@ApplicationScoped
+public class SimulationJobRegistry {
+    private static final Logger LOGGER = Logger.getLogger(SimulationJobRegistry.class.getName());
+
+    @Inject
+    @ConfigProperty(name="jobRetentionSeconds", defaultValue="3600")
+    private long retentionSeconds;
+
+    @Inject
+    @ConfigProperty(name="maxFinishedJobs", defaultValue="100")
+    private int maxFinishedJobs;
+
+    private final ConcurrentHashMap<String, SimulationJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private final ExecutorService jobThreads = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "simulation-job-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts the simulation in a job thread.
+     *
+     * @param pizzaOrder the simulation, used for progress and cancel
+     * @param simulation the createOrders call of the pizzaOrder
+     * @return the queued job
+     */
+    public SimulationJob submit(PizzaOrder pizzaOrder, Callable<Response> simulation) {
+        evictFinished();
+        SimulationJob job = new SimulationJob(UUID.randomUUID().toString(), pizzaOrder);
+        jobs.put(job.getId(), job);
+        jobThreads.execute(() -> job.run(simulation));
+        return job;
+    }
+
+    /**
+     * @param id the job id
+     * @return the job, null if unknown or evicted
+     */
+    public SimulationJob get(String id) {
+        evictFinished();
+        return jobs.get(id);
+    }
+
+    private void evictFinished() {
+        long oldest = System.currentTimeMillis() - retentionSeconds * 1000;
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedMillis() < oldest);
+
+        List<SimulationJob> finished = new ArrayList<>();
+        for (SimulationJob job : jobs.values()) {
+            if (job.isFinished())
+                finished.add(job);
+        }
+        if (finished.size() > maxFinishedJobs) {
+            finished.sort(Comparator.comparingLong(SimulationJob::getFinishedMillis));
+            for (SimulationJob job : finished.subList(0, finished.size() - maxFinishedJobs)) {
+                jobs.remove(job.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        LOGGER.info("Cancelling simulation jobs");
+        jobs.values().forEach(SimulationJob::cancel);
+        jobThreads.shutdown();
+    }
+}
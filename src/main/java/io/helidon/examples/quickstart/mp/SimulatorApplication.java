@@ -19,10 +19,12 @@ package io.helidon.examples.quickstart.mp;
 import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
 import io.helidon.common.CollectionsHelper;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Simple Application that produces a greeting message.
@@ -31,8 +33,18 @@ import io.helidon.common.CollectionsHelper;
 @ApplicationPath("/")
 public class SimulatorApplication extends Application {
 
+    /**
+     * Serves the {@link MockOrchestratorResource} under /mock-orchestrator, off by
+     * default as anyone could reconfigure it.
+     */
+    @Inject
+    @ConfigProperty(name="mockOrchestratorEnabled", defaultValue="false")
+    private boolean mockOrchestratorEnabled;
+
     @Override
     public Set<Class<?>> getClasses() {
+        if (mockOrchestratorEnabled)
+            return CollectionsHelper.setOf(SimulatorResource.class, MockOrchestratorResource.class);
         return CollectionsHelper.setOf(SimulatorResource.class);
     }
 }
\ No newline at end of file
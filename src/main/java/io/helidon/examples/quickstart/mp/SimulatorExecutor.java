@@ -0,0 +1,262 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+
+/**
+ * The thread pool that runs the order tasks of every simulation. It is created once
+ * from minThreads/maxThreads, so concurrent /simulator requests share the threads
+ * instead of each one creating its own pool.
+ *
+ * The queue is bounded by executorQueueCapacity. When it is full the
+ * executorRejectionPolicy applies:
+ * block (default) makes the submitter wait for room, caller-runs runs the task in the
+ * submitter thread and abort rejects the task.
+ *
+ * A sim-config with executor "virtual" runs one virtual thread per order instead,
+ * limited by max-virtual-threads, see {@link VirtualThreadExecutor}.
+ *
+ * The queue depth, active threads, pool size, rejected tasks and running virtual
+ * threads are published as application metrics under simulator.executor.*.
+ */
+@ApplicationScoped
+public class SimulatorExecutor {
+    private static final Logger LOGGER = Logger.getLogger(SimulatorExecutor.class.getName());
+
+    @Inject
+    @ConfigProperty(name="minThreads", defaultValue="20")
+    private int minThreads;
+
+    @Inject
+    @ConfigProperty(name="maxThreads", defaultValue="20")
+    private int maxThreads;
+
+    @Inject
+    @ConfigProperty(name="executorQueueCapacity", defaultValue="1000")
+    private int queueCapacity;
+
+    @Inject
+    @ConfigProperty(name="executorRejectionPolicy", defaultValue="block")
+    private String rejectionPolicy;
+
+    @Inject
+    @ConfigProperty(name="executorShutdownSeconds", defaultValue="30")
+    private int shutdownSeconds;
+
+    @Inject
+    @ConfigProperty(name="maxVirtualThreads", defaultValue="10000")
+    private int maxVirtualThreads;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicInteger virtualInFlight = new AtomicInteger();
+
+    private ThreadPoolExecutor threadPool;
+    private ExecutorService virtualThreads;
+
+    @PostConstruct
+    void init() {
+        LOGGER.info("ThreadPoolCreation: minThreads[" + minThreads + "] | maxThreads[" + maxThreads
+                    + "] | queueCapacity[" + queueCapacity + "] | rejectionPolicy[" + rejectionPolicy + "]");
+        threadPool = new ThreadPoolExecutor(minThreads, Math.max(minThreads, maxThreads), 60L, TimeUnit.SECONDS,
+                                            new ArrayBlockingQueue<Runnable>(queueCapacity),
+                                            new SimulatorThreadFactory(),
+                                            rejectionHandler(rejectionPolicy));
+        virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("simulator-virtual-", 1).factory());
+
+        registerGauge("simulator.executor.queue.depth", "Order tasks waiting in the queue", () -> threadPool.getQueue().size());
+        registerGauge("simulator.executor.active", "Threads running an order task", threadPool::getActiveCount);
+        registerGauge("simulator.executor.pool.size", "Threads in the pool", threadPool::getPoolSize);
+        registerGauge("simulator.executor.rejected", "Order tasks rejected because the queue was full", rejectedTasks::get);
+        registerGauge("simulator.executor.virtual.active", "Virtual threads running an order task", virtualInFlight::get);
+    }
+
+    /**
+     * Creates the pool at startup, so the metrics are there before the first simulation.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        LOGGER.info("Simulator executor ready: " + threadPool);
+    }
+
+    /**
+     * @return the shared executor, it must not be shut down by the simulations
+     */
+    public ExecutorService getExecutorService() {
+        return threadPool;
+    }
+
+    /**
+     * Returns the executor for the sim-config executor type.
+     *
+     * @param executorType platform (the shared pool) or virtual
+     * @param maxVirtualThreads max orders running at the same time in virtual mode
+     * @return the executor of the run
+     */
+    public ExecutorService getExecutorService(String executorType, int maxVirtualThreads) {
+        switch (executorType) {
+            case "platform":
+                return threadPool;
+            case "virtual":
+                LOGGER.info("VirtualThreadExecutor: maxVirtualThreads[" + maxVirtualThreads + "]");
+                return new VirtualThreadExecutor(virtualThreads, virtualInFlight, maxVirtualThreads);
+            default:
+                throw new IllegalArgumentException("executor -> " + executorType + " not valid, use platform or virtual");
+        }
+    }
+
+    /**
+     * @return virtual threads for the blocking I/O of the async REST client calls
+     */
+    public ExecutorService getClientExecutor() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return default max-virtual-threads of the MICROSERVICE mode
+     */
+    public int getMaxVirtualThreads() {
+        return maxVirtualThreads;
+    }
+
+    public int getMinThreads() {
+        return threadPool.getCorePoolSize();
+    }
+
+    public int getMaxThreads() {
+        return threadPool.getMaximumPoolSize();
+    }
+
+    /**
+     * Applies the min-threads/max-threads of a sim-config to the shared pool.
+     *
+     * @param minThreads core threads
+     * @param maxThreads max threads, used when the queue is full
+     */
+    public synchronized void resize(int minThreads, int maxThreads) {
+        int max = Math.max(minThreads, maxThreads);
+        if (threadPool.getCorePoolSize() == minThreads && threadPool.getMaximumPoolSize() == max)
+            return;
+
+        LOGGER.info("ThreadPool resize: minThreads[" + minThreads + "] | maxThreads[" + max + "]");
+        // the core size can never be bigger than the max size
+        if (max > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(max);
+            threadPool.setCorePoolSize(minThreads);
+        }
+        else {
+            threadPool.setCorePoolSize(minThreads);
+            threadPool.setMaximumPoolSize(max);
+        }
+    }
+
+    /**
+     * Stops accepting tasks and waits executorShutdownSeconds for the running ones.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (threadPool == null || threadPool.isShutdown())
+            return;
+
+        LOGGER.info("ThreadPool shutdown: active[" + threadPool.getActiveCount() + "] | queued["
+                    + threadPool.getQueue().size() + "] | virtual[" + virtualInFlight.get() + "]");
+        threadPool.shutdown();
+        virtualThreads.shutdown();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownSeconds);
+            if (!threadPool.awaitTermination(shutdownSeconds, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.WARNING, "ThreadPool not terminated after " + shutdownSeconds + " seconds, cancelling "
+                           + threadPool.shutdownNow().size() + " queued tasks");
+            }
+            if (!virtualThreads.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOGGER.log(Level.WARNING, "Interrupting " + virtualInFlight.get() + " virtual threads");
+                virtualThreads.shutdownNow();
+            }
+        }
+        catch (InterruptedException ex) {
+            threadPool.shutdownNow();
+            virtualThreads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RejectedExecutionHandler rejectionHandler(String policy) {
+        switch (policy) {
+            case "abort":
+                return (task, executor) -> {
+                    rejectedTasks.incrementAndGet();
+                    throw new RejectedExecutionException("Simulator queue full: " + executor.getQueue().size() + " tasks");
+                };
+            case "caller-runs":
+                return (task, executor) -> {
+                    rejectedTasks.incrementAndGet();
+                    if (!executor.isShutdown())
+                        task.run();
+                };
+            case "block":
+                return (task, executor) -> {
+                    try {
+                        // waits for room, but a shutdown while waiting rejects the task
+                        do {
+                            if (executor.isShutdown())
+                                throw new RejectedExecutionException("Simulator executor shut down");
+                        } while (!executor.getQueue().offer(task, 100, TimeUnit.MILLISECONDS));
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted waiting for the simulator queue", ex);
+                    }
+                    // queued while shutting down: the workers may be gone already
+                    if (executor.isShutdown() && executor.getQueue().remove(task))
+                        throw new RejectedExecutionException("Simulator executor shut down");
+                };
+            default:
+                throw new IllegalArgumentException("executorRejectionPolicy -> " + policy
+                                                   + " not valid, use block, caller-runs or abort");
+        }
+    }
+
+    private void registerGauge(String name, String description, Gauge<? extends Number> gauge) {
+        Metadata metadata = Metadata.builder()
+                                    .withName(name)
+                                    .withDescription(description)
+                                    .withType(MetricType.GAUGE)
+                                    .build();
+        metricRegistry.register(metadata, gauge);
+    }
+
+    private static class SimulatorThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "simulator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -18,7 +18,12 @@
 
 package io.helidon.examples.quickstart.mp;
 
+import java.net.URI;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,12 +34,15 @@ import javax.json.JsonBuilderFactory;
 import javax.json.JsonObject;
 import javax.json.JsonValue.ValueType;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -64,6 +72,7 @@ public class SimulatorResource {
     private static final Logger LOGGER           = Logger.getLogger(SimulatorResource.class.getName());
     private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Collections.emptyMap());
     private boolean databaseMode                 = false;
+    private boolean acceptNdjson                 = false;
 
     @Inject
     @ConfigProperty(name="minThreads", defaultValue="20")
@@ -73,6 +82,10 @@ public class SimulatorResource {
     @ConfigProperty(name="maxThreads", defaultValue="20")
     private int maxThreads;
 
+    @Inject
+    @ConfigProperty(name="profilesDir")
+    private Optional<String> profilesDir;
+
     
 
     /**
@@ -80,6 +93,30 @@ public class SimulatorResource {
      */
     private final SimulatorProvider simulatorProvider;
 
+    /**
+     * Connection pools shared by the DATABASE mode simulations.
+     */
+    @Inject
+    private DatabasePoolManager databasePoolManager;
+
+    /**
+     * Thread pool shared by all the simulations.
+     */
+    @Inject
+    private SimulatorExecutor simulatorExecutor;
+
+    /**
+     * RestClients shared by the MICROSERVICE mode simulations.
+     */
+    @Inject
+    private OrchestratorClientManager orchestratorClientManager;
+
+    /**
+     * Simulations started with "async": true.
+     */
+    @Inject
+    private SimulationJobRegistry jobRegistry;
+
     /**
      * Using constructor injection to get a configuration property. By default this
      * gets the value from META-INF/microprofile-config
@@ -169,46 +206,82 @@ public class SimulatorResource {
 
     private JsonObject setDataBaseMode(JsonObject dataBaseObj) throws Exception {
         JsonObject entity = null;
+        //memory sink needs no connection, jdbc sink no wallet
+        String sink       = DatabaseConfig.sinkOf(dataBaseObj);
+        boolean database  = !sink.equals(DatabaseConfig.MEMORY_SINK);
+        boolean wallet    = sink.equals(DatabaseConfig.ORACLE_SINK);
         if (!dataBaseObj.containsKey("date-ini")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> date-ini provided").build();
         } else if (!dataBaseObj.containsKey("date-format")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> date-format provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("connection-string")) {
+        } else if (database && !dataBaseObj.containsKey("connection-string")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> connection-string provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("client-credentials")) {
+        } else if (sink.equals(DatabaseConfig.JDBC_SINK) && !dataBaseObj.containsKey("driver")) {
+            entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> driver provided")
+                    .build();
+        } else if (wallet && !dataBaseObj.containsKey("client-credentials")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> client-credentials provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("keystore-password")) {
+        } else if (wallet && !dataBaseObj.containsKey("keystore-password")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> keystore-password provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("truststore-password")) {
+        } else if (wallet && !dataBaseObj.containsKey("truststore-password")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> truststore-password provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("user")) {
+        } else if (database && !dataBaseObj.containsKey("user")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> user provided")
                     .build();
-        } else if (!dataBaseObj.containsKey("password")) {
+        } else if (database && !dataBaseObj.containsKey("password")) {
             entity = JSON.createObjectBuilder().add("error", "No sim-config -> database -> password provided")
                     .build();
         } else {
             databaseMode = true;
 
             LOGGER.info("DATA-BASE MODE ON");
+            LOGGER.info("DATA-BASE sink               : " + sink);
             LOGGER.info("DATA-BASE date-format        : " + dataBaseObj.getString("date-format"));
             LOGGER.info("DATA-BASE date-ini           : " + dataBaseObj.getString("date-ini"));
-            LOGGER.info("DATA-BASE connection-string  : " + dataBaseObj.getString("connection-string"));
-            LOGGER.info("DATA-BASE client-credentials : " + dataBaseObj.getString("client-credentials"));
-            LOGGER.info("DATA-BASE keystore-password  : " + dataBaseObj.getString("keystore-password"));
-            LOGGER.info("DATA-BASE truststore-password: " + dataBaseObj.getString("truststore-password"));
-            LOGGER.info("DATA-BASE user               : " + dataBaseObj.getString("user"));
-            LOGGER.info("DATA-BASE password           : " + dataBaseObj.getString("password"));
+            if (database) {
+                LOGGER.info("DATA-BASE connection-string  : " + dataBaseObj.getString("connection-string"));
+                LOGGER.info("DATA-BASE driver             : " + ConfigValues.stringValue(dataBaseObj, "driver", ""));
+                LOGGER.info("DATA-BASE client-credentials : " + ConfigValues.stringValue(dataBaseObj, "client-credentials", ""));
+                LOGGER.info("DATA-BASE keystore-password  : " + ConfigValues.stringValue(dataBaseObj, "keystore-password", ""));
+                LOGGER.info("DATA-BASE truststore-password: " + ConfigValues.stringValue(dataBaseObj, "truststore-password", ""));
+                LOGGER.info("DATA-BASE user               : " + dataBaseObj.getString("user"));
+                LOGGER.info("DATA-BASE password           : " + dataBaseObj.getString("password"));
+            }
         }
 
         return entity;
     }
 
+    /**
+     * Creates the MICROSERVICE mode order generator with the cached client of the
+     * microservice "transport": jaxrs (default) for the RestClient, jdk-http for the
+     * JDK HttpClient, with "http-version" HTTP_2 (default) or HTTP_1_1.
+     */
+    private PizzaOrderMS createPizzaOrderMS(JsonObject jsonMsObj, ExecutorService executorService) throws Exception {
+        String transport = jsonMsObj.getString("transport", "jaxrs");
+        LOGGER.info("MICROSERVICE transport              : " + transport);
+        switch (transport) {
+            case "jaxrs":
+                return new PizzaOrderMS(minThreads, maxThreads, executorService,
+                                        orchestratorClientManager.getClient(jsonMsObj.getString("url"),
+                                                                            jsonMsObj.getInt("connection-timeout"),
+                                                                            jsonMsObj.getInt("response-timeout")));
+            case "jdk-http":
+                return new PizzaOrderMS(minThreads, maxThreads, executorService,
+                                        orchestratorClientManager.getTransport(jsonMsObj.getString("url"),
+                                                                               jsonMsObj.getInt("connection-timeout"),
+                                                                               jsonMsObj.getInt("response-timeout"),
+                                                                               jsonMsObj.getString("http-version", "HTTP_2")));
+            default:
+                throw new IllegalArgumentException("microservice.transport -> " + transport + " not valid, use jaxrs or jdk-http");
+        }
+    }
+
     private JsonObject setMicroserviceMode(JsonObject jsonMsObj) throws Exception {
         JsonObject entity = null;
         if (!jsonMsObj.containsKey("url")) {
@@ -230,6 +303,119 @@ public class SimulatorResource {
         return entity;
     }
 
+    private ExecutorService getExecutorService(JsonObject simConfig, int defaultMaxVirtualThreads) {
+        //the platform pool is shared with the running jobs, a new one doesn't resize it:
+        //its min-threads/max-threads only size the database pool, PUT /jobs/{id} resizes it
+        String executorType = ConfigValues.stringValue(simConfig, "executor", "platform");
+        return simulatorExecutor.getExecutorService(executorType,
+                                                    ConfigValues.intValue(simConfig, "max-virtual-threads", defaultMaxVirtualThreads));
+    }
+
+    private void setRunOptions(PizzaOrder pizzaOrder, JsonObject simConfig) {
+        int window = ConfigValues.intValue(simConfig, "window", PizzaOrder.DEFAULT_WINDOW);
+        if (window <= 0)
+            throw new IllegalArgumentException("window -> must be greater than 0");
+
+        //async jobs keep only the summary, their result stays in the job registry.
+        //ndjson writes every order as it completes and the summary at the end.
+        boolean summaryOnly = simConfig.getBoolean("async", false) || isNdjsonResponse(simConfig) || isContinuous(simConfig)
+                              || ConfigValues.stringValue(simConfig, "response", "orders").equals("summary");
+        pizzaOrder.setRunOptions(window, summaryOnly);
+        if (isContinuous(simConfig)) {
+            int durationSeconds = ConfigValues.intValue(simConfig, "duration-seconds", 0);
+            if (durationSeconds < 0)
+                throw new IllegalArgumentException("duration-seconds -> can't be negative");
+            pizzaOrder.setContinuous(durationSeconds);
+        }
+        setPacer(pizzaOrder, simConfig.getJsonObject("rate"), simConfig.getJsonObject("profile"));
+
+        //auto-tune finds the concurrency of the knee, an open-loop run has its own offered load
+        JsonObject autoTune = simConfig.getJsonObject("auto-tune");
+        if (autoTune != null) {
+            if (pizzaOrder.getPacer() != null)
+                throw new IllegalArgumentException("auto-tune -> not with rate or profile");
+            pizzaOrder.setConcurrencyLimit(new AdaptiveConcurrencyLimit(autoTune));
+        }
+    }
+
+    /**
+     * Open-loop run: the orders start at rate.orders-per-second, after a linear ramp up,
+     * or follow the traffic shape of a profile, whatever the latency of the previous ones.
+     * max-in-flight is the window of the run.
+     */
+    private void setPacer(PizzaOrder pizzaOrder, JsonObject rate, JsonObject profileObj) {
+        if (rate == null && profileObj == null)
+            return;
+        if (rate != null && profileObj != null)
+            throw new IllegalArgumentException("rate, profile -> only one of them");
+
+        JsonObject pacing      = (rate != null) ? rate : profileObj;
+        String section         = (rate != null) ? "rate" : "profile";
+        int maxInFlight        = ConfigValues.intValue(pacing, "max-in-flight", pizzaOrder.getWindow());
+        double lateToleranceMs = ConfigValues.doubleValue(pacing, "late-tolerance-ms", 1);
+        if (lateToleranceMs < 0)
+            throw new IllegalArgumentException(section + ".late-tolerance-ms -> can't be negative");
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException(section + ".max-in-flight -> must be greater than 0");
+        long lateToleranceNanos = Math.round(lateToleranceMs * 1_000_000);
+
+        OrderPacer pacer;
+        if (rate != null) {
+            double ordersPerSecond = ConfigValues.doubleValue(rate, "orders-per-second", 0);
+            double rampUpSeconds   = ConfigValues.doubleValue(rate, "ramp-up-seconds", 0);
+            if (ordersPerSecond <= 0)
+                throw new IllegalArgumentException("rate.orders-per-second -> must be greater than 0");
+            if (rampUpSeconds < 0)
+                throw new IllegalArgumentException("rate.ramp-up-seconds -> can't be negative");
+            pacer = new OrderPacer(RateSchedule.rampUp(ordersPerSecond, rampUpSeconds), lateToleranceNanos);
+        }
+        else {
+            LoadProfile profile = new LoadProfile(profileObj, profilesDir.map(Paths::get).orElse(null));
+            pacer = new OrderPacer(profile.getSchedule(), lateToleranceNanos, profile.getTimeCompression());
+        }
+        pizzaOrder.setRunOptions(maxInFlight, pizzaOrder.summaryOnly);
+        pizzaOrder.setPacer(pacer);
+    }
+
+    /**
+     * A continuous run goes on for duration-seconds, until the end of its profile or until
+     * stopped, num-orders is optional.
+     */
+    private static boolean isContinuous(JsonObject simConfig) {
+        return simConfig.getBoolean("continuous", false) || simConfig.containsKey("duration-seconds")
+               || simConfig.containsKey("profile");
+    }
+
+    private static int getNumOrders(JsonObject simConfig) {
+        return isContinuous(simConfig) ? ConfigValues.intValue(simConfig, "num-orders", 0) : simConfig.getInt("num-orders");
+    }
+
+    private boolean isAsync(JsonObject simConfig) {
+        //continuous runs are jobs, unless streamed as ndjson
+        return simConfig.getBoolean("async", false) || (isContinuous(simConfig) && !isNdjsonResponse(simConfig));
+    }
+
+    private boolean isNdjsonResponse(JsonObject simConfig) {
+        return acceptNdjson || ConfigValues.stringValue(simConfig, "response", "orders").equals("ndjson");
+    }
+
+    private Response runSimulation(JsonObject simConfig, PizzaOrder pizzaOrder, Callable<Response> simulation) throws Exception {
+        if (!isAsync(simConfig)) {
+            if (isNdjsonResponse(simConfig)) {
+                NdjsonStreamer streamer = new NdjsonStreamer(pizzaOrder, simulation, pizzaOrder.getWindow());
+                return Response.ok(streamer, NdjsonStreamer.NDJSON_TYPE).build();
+            }
+            return simulation.call();
+        }
+
+        SimulationJob job = jobRegistry.submit(pizzaOrder, simulation);
+        LOGGER.info("Simulation job " + job.getId() + " submitted");
+        return Response.status(Response.Status.ACCEPTED)
+                       .location(URI.create("simulator/jobs/" + job.getId()))
+                       .entity(job.toJson())
+                       .build();
+    }
+
     private Response verifyThreadsJsonProperties(JsonObject jsonObject, String threadField){
         Response resp = null;
         if (jsonObject.containsKey((threadField))) {   
@@ -262,15 +448,16 @@ public class SimulatorResource {
     @SuppressWarnings("checkstyle:designforextension")
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, NdjsonStreamer.NDJSON})
     @RequestBody(name = "sim-config", 
         required = true, 
         content = @Content(mediaType = "application/json", 
         schema = @Schema(type = SchemaType.STRING, example = "{\"sim-config\" : {\"num-orders\": 10,\"pizza-status\":\"ORDERED\"}}")))
     @APIResponses({ @APIResponse(name = "normal", responseCode = "204", description = "orders creating"),
     @APIResponse(name = "missing 'sim-config'", responseCode = "400", description = "JSON did not contain setting for 'sim-config'") })
-    public Response getCreateMessage(JsonObject jsonObject) {
+    public Response getCreateMessage(JsonObject jsonObject, @HeaderParam(HttpHeaders.ACCEPT) String accept) {
         Response resp  = null;
+        acceptNdjson   = accept != null && accept.contains(NdjsonStreamer.NDJSON);
         try {
             if (jsonObject == null) {
                 JsonObject entity = JSON.createObjectBuilder().add("error", "No sim-config provided").build();
@@ -278,7 +465,8 @@ public class SimulatorResource {
             } else if (!jsonObject.containsKey("sim-config")) {
                 JsonObject entity = JSON.createObjectBuilder().add("error", "No sim-config provided").build();
                 resp = Response.status(Response.Status.BAD_REQUEST).entity(entity).build();
-            } else if (!jsonObject.getJsonObject("sim-config").containsKey("num-orders")) {
+            } else if (!jsonObject.getJsonObject("sim-config").containsKey("num-orders")
+                       && !isContinuous(jsonObject.getJsonObject("sim-config"))) {
                 JsonObject entity = JSON.createObjectBuilder().add("error", "No sim-config -> num-orders provided")
                         .build();
                 resp = Response.status(Response.Status.BAD_REQUEST).entity(entity).build();
@@ -299,17 +487,18 @@ public class SimulatorResource {
                 else{
                     if((resp = verifyThreadsJsonProperties(jsonObject.getJsonObject("sim-config"), "min-threads")) == null){
                         if((resp = verifyThreadsJsonProperties(jsonObject.getJsonObject("sim-config"), "max-threads")) == null){
-                            PizzaOrderDB pizzaOrderDB = new PizzaOrderDB(minThreads, maxThreads,
-                                                            dataBaseObj.getString("connection-string"),
-                                                            dataBaseObj.getString("user"),
-                                                            dataBaseObj.getString("password"),
-                                                            dataBaseObj.getString("client-credentials"),
-                                                            dataBaseObj.getString("keystore-password"),
-                                                            dataBaseObj.getString("truststore-password"));
-                            resp = pizzaOrderDB.createOrders(dataBaseObj.getString("date-format"), 
-                                                           dataBaseObj.getString("date-ini"),
-                                                           jsonObject.getJsonObject("sim-config").getInt("num-orders"),
-                                                           jsonObject.getJsonObject("sim-config").getString("pizza-status"));
+                            DatabaseConfig dbConfig = new DatabaseConfig(dataBaseObj, minThreads, maxThreads);
+                            //JDBC calls can't run in more threads than pooled connections
+                            ExecutorService executorService = getExecutorService(jsonObject.getJsonObject("sim-config"),
+                                                                                 dbConfig.getMaxPoolSize());
+                            PizzaOrderDB pizzaOrderDB = new PizzaOrderDB(minThreads, maxThreads, executorService,
+                                                                         databasePoolManager, dbConfig);
+                            setRunOptions(pizzaOrderDB, jsonObject.getJsonObject("sim-config"));
+                            resp = runSimulation(jsonObject.getJsonObject("sim-config"), pizzaOrderDB,
+                                                 () -> pizzaOrderDB.createOrders(dataBaseObj.getString("date-format"), 
+                                                                                 dataBaseObj.getString("date-ini"),
+                                                                                 getNumOrders(jsonObject.getJsonObject("sim-config")),
+                                                                                 jsonObject.getJsonObject("sim-config").getString("pizza-status")));
                         }
                     }                    
                 }
@@ -321,12 +510,16 @@ public class SimulatorResource {
                 else {
                     if((resp = verifyThreadsJsonProperties(jsonObject.getJsonObject("sim-config"), "min-threads")) == null){
                         if((resp = verifyThreadsJsonProperties(jsonObject.getJsonObject("sim-config"), "max-threads")) == null){
-                            
-                            PizzaOrderMS pizzaOrderMS = new PizzaOrderMS(minThreads, maxThreads, jsonMsObj.getString("url"), 
-                                                                                           jsonMsObj.getInt("connection-timeout"),
-                                                                                           jsonMsObj.getInt("response-timeout"));
-                            resp = pizzaOrderMS.createOrders(jsonObject.getJsonObject("sim-config").getInt("num-orders"),
-                                                           jsonObject.getJsonObject("sim-config").getString("pizza-status"));
+                            ExecutorService executorService = getExecutorService(jsonObject.getJsonObject("sim-config"),
+                                                                                 simulatorExecutor.getMaxVirtualThreads());
+                            PizzaOrderMS pizzaOrderMS = createPizzaOrderMS(jsonMsObj, executorService);
+                            setRunOptions(pizzaOrderMS, jsonObject.getJsonObject("sim-config"));
+                            pizzaOrderMS.setAsyncClient(jsonMsObj.getBoolean("async-client", false));
+                            if (jsonMsObj.containsKey("fault-tolerance"))
+                                pizzaOrderMS.setGuard(new OrchestratorGuard(jsonMsObj.getJsonObject("fault-tolerance")));
+                            resp = runSimulation(jsonObject.getJsonObject("sim-config"), pizzaOrderMS,
+                                                 () -> pizzaOrderMS.createOrders(getNumOrders(jsonObject.getJsonObject("sim-config")),
+                                                                                 jsonObject.getJsonObject("sim-config").getString("pizza-status")));
                         }
                     } 
                 }
@@ -341,4 +534,151 @@ public class SimulatorResource {
             return Response.status(Response.Status.BAD_REQUEST).entity(entity).build();
         }
     }
+
+    /**
+     * Return the progress of an async simulation, and its result when it has finished.
+     *
+     * @param id the job id returned by the POST
+     * @return {@link Response}
+     */
+    @SuppressWarnings("checkstyle:designforextension")
+    @Path("/jobs/{id}")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @APIResponses({ @APIResponse(name = "normal", responseCode = "200", description = "job progress"),
+    @APIResponse(name = "unknown job", responseCode = "404", description = "job not found or evicted") })
+    public Response getJob(@PathParam("id") String id) {
+        SimulationJob job = jobRegistry.get(id);
+        if (job == null)
+            return jobNotFound(id);
+
+        return Response.ok(job.toJson()).build();
+    }
+
+    /**
+     * Cancel an async simulation. No more orders are submitted, the running ones finish.
+     *
+     * @param id the job id returned by the POST
+     * @return {@link Response}
+     */
+    @SuppressWarnings("checkstyle:designforextension")
+    @Path("/jobs/{id}")
+    @DELETE
+    @Produces(MediaType.APPLICATION_JSON)
+    @APIResponses({ @APIResponse(name = "normal", responseCode = "202", description = "job cancelling"),
+    @APIResponse(name = "unknown job", responseCode = "404", description = "job not found or evicted") })
+    public Response cancelJob(@PathParam("id") String id) {
+        SimulationJob job = jobRegistry.get(id);
+        if (job == null)
+            return jobNotFound(id);
+
+        job.cancel();
+        return Response.status(Response.Status.ACCEPTED).entity(job.toJson()).build();
+    }
+
+    /**
+     * End a continuous simulation. No more orders are submitted, the running ones finish
+     * and the job is COMPLETED.
+     *
+     * @param id the job id returned by the POST
+     * @return {@link Response}
+     */
+    @SuppressWarnings("checkstyle:designforextension")
+    @Path("/jobs/{id}/stop")
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    @APIResponses({ @APIResponse(name = "normal", responseCode = "202", description = "job stopping"),
+    @APIResponse(name = "unknown job", responseCode = "404", description = "job not found or evicted") })
+    public Response stopJob(@PathParam("id") String id) {
+        SimulationJob job = jobRegistry.get(id);
+        if (job == null)
+            return jobNotFound(id);
+
+        job.stop();
+        return Response.status(Response.Status.ACCEPTED).entity(job.toJson()).build();
+    }
+
+    /**
+     * Retune a running simulation: its rate, and the threads of its executor. The executor
+     * is resized, not recreated, so the running orders are not affected.
+     *
+     * @param id the job id returned by the POST
+     * @param tuning rate, min-threads/max-threads or max-virtual-threads
+     * @return {@link Response}
+     */
+    @SuppressWarnings("checkstyle:designforextension")
+    @Path("/jobs/{id}")
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @RequestBody(name = "tuning", required = true, content = @Content(mediaType = "application/json",
+        schema = @Schema(type = SchemaType.STRING, example = "{\"rate\": {\"orders-per-second\": 200, \"ramp-up-seconds\": 10}, \"max-threads\": 40}")))
+    @APIResponses({ @APIResponse(name = "normal", responseCode = "200", description = "job retuned"),
+    @APIResponse(name = "bad tuning", responseCode = "400", description = "wrong values or rate of a closed-loop job"),
+    @APIResponse(name = "unknown job", responseCode = "404", description = "job not found or evicted"),
+    @APIResponse(name = "finished job", responseCode = "409", description = "the job has already finished") })
+    public Response retuneJob(@PathParam("id") String id, JsonObject tuning) {
+        SimulationJob job = jobRegistry.get(id);
+        if (job == null)
+            return jobNotFound(id);
+        if (job.isFinished()) {
+            JsonObject entity = JSON.createObjectBuilder().add("error", "job " + id + " already finished").build();
+            return Response.status(Response.Status.CONFLICT).entity(entity).build();
+        }
+
+        try {
+            retune(job.getPizzaOrder(), tuning);
+        }
+        catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "ERROR retune job " + id + " " + ex.getMessage());
+            JsonObject entity = JSON.createObjectBuilder().add("error", "problem with json tuning")
+                                                          .add("error-mess", String.valueOf(ex.getMessage())).build();
+            return Response.status(Response.Status.BAD_REQUEST).entity(entity).build();
+        }
+        return Response.ok(job.toJson()).build();
+    }
+
+    private void retune(PizzaOrder pizzaOrder, JsonObject tuning) {
+        JsonObject rate = tuning.getJsonObject("rate");
+        if (rate != null) {
+            OrderPacer pacer = pizzaOrder.getPacer();
+            if (pacer == null)
+                throw new IllegalArgumentException("rate -> the job is not open-loop");
+            double ordersPerSecond = ConfigValues.doubleValue(rate, "orders-per-second", 0);
+            double rampUpSeconds   = ConfigValues.doubleValue(rate, "ramp-up-seconds", 0);
+            if (ordersPerSecond <= 0)
+                throw new IllegalArgumentException("rate.orders-per-second -> must be greater than 0");
+            if (rampUpSeconds < 0)
+                throw new IllegalArgumentException("rate.ramp-up-seconds -> can't be negative");
+
+            //ramps from the current rate to the new one
+            RateSchedule.Builder schedule = new RateSchedule.Builder();
+            if (rampUpSeconds > 0)
+                schedule.segment(rampUpSeconds, pacer.currentRate(), ordersPerSecond);
+            pacer.retune(schedule.constant(ordersPerSecond));
+            LOGGER.info("Rate retuned: ordersPerSecond[" + ordersPerSecond + "] | rampUpSeconds[" + rampUpSeconds + "]");
+        }
+
+        ExecutorService executorService = pizzaOrder.getExecutorService();
+        if (executorService instanceof VirtualThreadExecutor) {
+            VirtualThreadExecutor virtualExecutor = (VirtualThreadExecutor) executorService;
+            int maxVirtualThreads = ConfigValues.intValue(tuning, "max-virtual-threads", virtualExecutor.getMaxConcurrency());
+            if (maxVirtualThreads <= 0)
+                throw new IllegalArgumentException("max-virtual-threads -> must be greater than 0");
+            virtualExecutor.setMaxConcurrency(maxVirtualThreads);
+        }
+        else if (tuning.containsKey("min-threads") || tuning.containsKey("max-threads")) {
+            //the platform pool is shared, every running simulation gets the new size
+            int newMinThreads = ConfigValues.intValue(tuning, "min-threads", simulatorExecutor.getMinThreads());
+            int newMaxThreads = ConfigValues.intValue(tuning, "max-threads", Math.max(newMinThreads, simulatorExecutor.getMaxThreads()));
+            if (newMinThreads < 0 || newMaxThreads <= 0)
+                throw new IllegalArgumentException("min-threads, max-threads -> must be greater than 0");
+            simulatorExecutor.resize(newMinThreads, newMaxThreads);
+        }
+    }
+
+    private Response jobNotFound(String id) {
+        JsonObject entity = JSON.createObjectBuilder().add("error", "job " + id + " not found").build();
+        return Response.status(Response.Status.NOT_FOUND).entity(entity).build();
+    }
 }
@@ -0,0 +1,62 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * The SQL that is not the same in every database: the next PAYMENT_SEQ value and the
+ * conversion of the ISO-8601 paymentTime of the generated payments.
+ *
+ * ORACLE is the SQL of the ATP schema. STANDARD is SQL:2003, for embedded databases
+ * like H2, HSQLDB or Derby with the same MICROSERVICE.* tables, and the paymentTime is
+ * bound as a TIMESTAMP.
+ */
+public final class SqlDialect {
+    public static final SqlDialect ORACLE   = new SqlDialect("MICROSERVICE.PAYMENT_SEQ.nextval",
+                                                             "TO_TIMESTAMP(?,'YYYY-MM-DD\"T\"HH24:MI:SS.ff3\"Z\"')", false);
+    public static final SqlDialect STANDARD = new SqlDialect("NEXT VALUE FOR MICROSERVICE.PAYMENT_SEQ", "?", true);
+
+    private final String insertPaymentSql;
+    private final boolean timestampBind;
+
+    private SqlDialect(String nextPaymentCode, String paymentTime, boolean timestampBind) {
+        this.insertPaymentSql = "INSERT INTO MICROSERVICE.PAYMENTS (PAYMENTCODE,ORDERID,PAYMENTTIME,PAYMENTMETHOD,ORIGINALPRICE,TOTALPAID,CUSTOMERID)"
+                              + " VALUES (" + nextPaymentCode + ",?," + paymentTime + ",?,?,?,?)";
+        this.timestampBind    = timestampBind;
+    }
+
+    /**
+     * @param name oracle or standard
+     * @return the dialect
+     * @throws IllegalArgumentException if the name is not valid
+     */
+    static SqlDialect of(String name) {
+        switch (name) {
+            case "oracle":
+                return ORACLE;
+            case "standard":
+                return STANDARD;
+            default:
+                throw new IllegalArgumentException("database.dialect -> " + name + " not valid, use oracle or standard");
+        }
+    }
+
+    String getInsertPaymentSql() {
+        return insertPaymentSql;
+    }
+
+    /**
+     * @param pstat the insert payment statement
+     * @param index the paymentTime bind variable
+     * @param paymentTime the generated yyyy-MM-dd'T'HH:mm:ss.SSS'Z' time
+     * @throws SQLException if it can't be bound
+     */
+    void bindPaymentTime(PreparedStatement pstat, int index, String paymentTime) throws SQLException {
+        if (timestampBind)
+            pstat.setTimestamp(index, Timestamp.from(Instant.parse(paymentTime)));
+        else
+            pstat.setString(index, paymentTime);
+    }
+}
@@ -0,0 +1,117 @@
+package io.helidon.examples.quickstart.mp;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every order of one simulation in its own virtual thread, with at most
+ * maxConcurrency of them running at the same time. When the limit is reached the
+ * submitter waits for a permit, the same backpressure as the platform pool queue.
+ *
+ * The virtual threads come from the {@link SimulatorExecutor}, so shutting this
+ * executor down only stops the run, not the shared one.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+    private final ExecutorService virtualThreads;
+    private final AtomicInteger inFlight;
+    private final ResizableSemaphore permits;
+
+    private volatile int maxConcurrency;
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param virtualThreads thread per task executor of virtual threads
+     * @param inFlight counter of the running virtual threads of all the runs
+     * @param maxConcurrency max virtual threads of this run
+     */
+    VirtualThreadExecutor(ExecutorService virtualThreads, AtomicInteger inFlight, int maxConcurrency) {
+        this.virtualThreads = virtualThreads;
+        this.inFlight       = inFlight;
+        this.permits        = new ResizableSemaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Changes the max virtual threads of a running simulation. When lowered, the running
+     * threads finish and no new one starts until the run is under the new limit.
+     *
+     * @param newMaxConcurrency max virtual threads of this run
+     */
+    synchronized void setMaxConcurrency(int newMaxConcurrency) {
+        if (newMaxConcurrency > maxConcurrency)
+            permits.release(newMaxConcurrency - maxConcurrency);
+        else
+            permits.reducePermits(maxConcurrency - newMaxConcurrency);
+        maxConcurrency = newMaxConcurrency;
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown)
+            throw new RejectedExecutionException("Virtual thread executor shut down");
+        try {
+            permits.acquire();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for a virtual thread permit", ex);
+        }
+
+        try {
+            virtualThreads.execute(() -> {
+                inFlight.incrementAndGet();
+                try {
+                    task.run();
+                }
+                finally {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && permits.availablePermits() == maxConcurrency;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        // all the permits are back when the last task ends
+        if (!permits.tryAcquire(maxConcurrency, timeout, unit))
+            return false;
+        permits.release(maxConcurrency);
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, 2019 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.helidon.examples.quickstart.mp;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JdkHttpTransportTest {
+
+    @Test
+    void testNumericAndStringOrderId() {
+        Assertions.assertEquals("20", readOrderId("{\"resJSONDB\":{\"orderId\":20,\"status\":\"PIZZA PAID\"}}"));
+        Assertions.assertEquals("\"2019062119470000\"", readOrderId("{\"resJSONDB\":{\"status\":\"PIZZA PAID\",\"orderId\":\"2019062119470000\"}}"));
+    }
+
+    @Test
+    void testNestedAndArrayOrderId() {
+        Assertions.assertEquals("{\"id\":20,\"node\":[1,2]}", readOrderId("{\"resJSONDB\":{\"orderId\":{\"id\":20,\"node\":[1,2]}}}"));
+        Assertions.assertEquals("[20,21]", readOrderId("{\"resJSONDB\":{\"orderId\":[20,21]}}"));
+    }
+
+    @Test
+    void testOrderIdOutsideResJSONDBIgnored() {
+        Assertions.assertEquals("7", readOrderId("{\"orderId\":1,\"other\":{\"orderId\":2},"
+                                                 + "\"resJSONDB\":{\"order\":{\"orderId\":3},\"list\":[{\"orderId\":4}],\"orderId\":7}}"));
+    }
+
+    @Test
+    void testMissingOrderId() {
+        Assertions.assertThrows(IllegalStateException.class, () -> readOrderId("{\"resJSONDB\":{\"status\":\"PIZZA PAID\"}}"));
+        Assertions.assertThrows(IllegalStateException.class, () -> readOrderId("{\"resJSONDB\":{\"order\":{\"orderId\":3}},\"orderId\":5}"));
+        Assertions.assertThrows(IllegalStateException.class, () -> readOrderId("[{\"resJSONDB\":{\"orderId\":3}}]"));
+    }
+
+    private static String readOrderId(String body) {
+        return JdkHttpTransport.readOrderId(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
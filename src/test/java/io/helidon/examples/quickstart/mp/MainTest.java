@@ -18,8 +18,10 @@ package io.helidon.examples.quickstart.mp;
 
 import javax.enterprise.inject.se.SeContainer;
 import javax.enterprise.inject.spi.CDI;
+import javax.json.JsonObject;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Response;
 
 import io.helidon.microprofile.server.Server;
@@ -55,6 +57,71 @@ class MainTest {
         Assertions.assertEquals(200, resp.getStatus(), "GET health status code");
     }
 
+    @Test
+    void testMockOrchestrator() {
+
+        Client client         = ClientBuilder.newClient();
+        Response resp         = null;
+
+        resp = client
+                .target(getConnectionString("/mock-orchestrator/config"))
+                .request()
+                .put(Entity.json("{\"latency\": {\"type\": \"uniform\", \"min-ms\": 1, \"max-ms\": 5}}"));
+        Assertions.assertEquals(200, resp.getStatus(), "PUT mock-orchestrator config status code");
+
+        String simConfig = "{\"sim-config\": {\"num-orders\": 20, \"response\": \"summary\", \"pizza-status\": \"PIZZA PAID\","
+                           + " \"microservice\": {\"url\": \"" + getConnectionString("/mock-orchestrator") + "\","
+                           + " \"connection-timeout\": 2000, \"response-timeout\": 5000}}}";
+        resp = client
+                .target(getConnectionString("/simulator"))
+                .request()
+                .post(Entity.json(simConfig));
+        Assertions.assertEquals(202, resp.getStatus(), "POST simulator status code");
+        JsonObject summary = resp.readEntity(JsonObject.class).getJsonObject("summary");
+        Assertions.assertEquals(20, summary.getInt("created"), "orders created in the mock orchestrator");
+
+        client.target(getConnectionString("/mock-orchestrator/orders")).request().delete();
+        resp = client
+                .target(getConnectionString("/mock-orchestrator/config"))
+                .request()
+                .put(Entity.json("{\"error-rate\": 1}"));
+        Assertions.assertEquals(200, resp.getStatus(), "PUT mock-orchestrator config status code");
+        resp = client
+                .target(getConnectionString("/simulator"))
+                .request()
+                .post(Entity.json(simConfig));
+        summary = resp.readEntity(JsonObject.class).getJsonObject("summary");
+        Assertions.assertEquals(20, summary.getInt("failed"), "orders failed by the mock orchestrator");
+        JsonObject mockConfig = client.target(getConnectionString("/mock-orchestrator/config")).request().get(JsonObject.class);
+        Assertions.assertEquals(0, mockConfig.getInt("stored-orders"), "failed orders not stored");
+    }
+
+    @Test
+    void testMemorySink() {
+
+        Client client         = ClientBuilder.newClient();
+        Response resp         = null;
+
+        String simConfig = "{\"sim-config\": {\"num-orders\": 50, \"response\": \"summary\", \"pizza-status\": \"PIZZA PAID\","
+                           + " \"database\": {\"sink\": \"memory\", \"date-format\": \"dd/MM/yyyy HH:mm:ss\","
+                           + " \"date-ini\": \"20/06/2019 21:47:00\"}}}";
+        resp = client
+                .target(getConnectionString("/simulator"))
+                .request()
+                .post(Entity.json(simConfig));
+        Assertions.assertEquals(202, resp.getStatus(), "POST simulator status code");
+        JsonObject result = resp.readEntity(JsonObject.class);
+        Assertions.assertEquals(50, result.getJsonObject("summary").getInt("created"), "orders written to the memory sink");
+        Assertions.assertEquals(50, result.getJsonObject("sink").getInt("orders"), "orders counted by the memory sink");
+        Assertions.assertEquals(50, result.getJsonObject("sink").getInt("payments"), "payments counted by the memory sink");
+
+        resp = client
+                .target(getConnectionString("/simulator"))
+                .request()
+                .post(Entity.json(simConfig.replace("memory", "none")));
+        Assertions.assertEquals(400, resp.getStatus(), "POST simulator with an unknown sink status code");
+    }
+
     @AfterAll
     static void destroyClass() {
         CDI<Object> current = CDI.current();
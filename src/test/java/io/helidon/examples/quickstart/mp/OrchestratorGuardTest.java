@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018, 2019 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.helidon.examples.quickstart.mp;
+
+import java.io.StringReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class OrchestratorGuardTest {
+
+    @Test
+    void testBulkheadRejectsPastMaxConcurrentCalls() throws Exception {
+        OrchestratorGuard guard = guard("{\"bulkhead\":{\"max-concurrent-calls\":1}}");
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletionStage<String> running = guard.callAsync(() -> first);
+
+        assertRejected(guard.callAsync(() -> CompletableFuture.completedFuture("second")));
+        Assertions.assertThrows(OrchestratorGuard.RejectedCallException.class, () -> guard.call(() -> "third"));
+        first.complete("first");
+        Assertions.assertEquals("first", running.toCompletableFuture().join());
+        Assertions.assertEquals("fourth", guard.call(() -> "fourth"));
+        Assertions.assertEquals(2, guard.toJson().getInt("bulkhead-rejected"));
+    }
+
+    @Test
+    void testCircuitOpensAtFailureRatio() throws Exception {
+        OrchestratorGuard guard = guard("{\"circuit-breaker\":{\"request-volume-threshold\":4,\"failure-ratio\":0.5,\"delay-ms\":60000}}");
+        guard.call(() -> "ok");
+        guard.call(() -> "ok");
+        fail(guard);
+        Assertions.assertEquals("closed", guard.toJson().getString("circuit-state"));
+        fail(guard);
+
+        Assertions.assertEquals("open", guard.toJson().getString("circuit-state"));
+        Assertions.assertThrows(OrchestratorGuard.RejectedCallException.class, () -> guard.call(() -> "rejected"));
+        Assertions.assertEquals(1, guard.toJson().getInt("circuit-rejected"));
+    }
+
+    @Test
+    void testHalfOpenLetsOnlyTheTrialCallsThrough() throws Exception {
+        OrchestratorGuard guard = openGuard(2);
+        CompletableFuture<String> trial1 = new CompletableFuture<>();
+        CompletableFuture<String> trial2 = new CompletableFuture<>();
+        guard.callAsync(() -> trial1);
+        guard.callAsync(() -> trial2);
+        Assertions.assertEquals("half-open", guard.toJson().getString("circuit-state"));
+        assertRejected(guard.callAsync(() -> CompletableFuture.completedFuture("third")));
+
+        trial1.complete("ok");
+        assertRejected(guard.callAsync(() -> CompletableFuture.completedFuture("fourth")));
+        trial2.complete("ok");
+        Assertions.assertEquals("closed", guard.toJson().getString("circuit-state"));
+        Assertions.assertEquals("fifth", guard.call(() -> "fifth"));
+    }
+
+    @Test
+    void testFailedTrialOpensAgain() throws Exception {
+        OrchestratorGuard guard = openGuard(2);
+        fail(guard);
+        Assertions.assertEquals("open", guard.toJson().getString("circuit-state"));
+        Assertions.assertEquals(2, guard.toJson().getInt("circuit-opened"));
+    }
+
+    @Test
+    void testLateResultOfAClosedCallIsNotATrial() throws Exception {
+        OrchestratorGuard guard = guard("{\"circuit-breaker\":{\"request-volume-threshold\":2,\"failure-ratio\":1,\"delay-ms\":0,"
+                                        + "\"success-threshold\":1}}");
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        guard.callAsync(() -> slow);
+        fail(guard);
+        fail(guard);
+        Assertions.assertEquals("open", guard.toJson().getString("circuit-state"));
+
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        guard.callAsync(() -> trial);
+        slow.complete("ok");
+        Assertions.assertEquals("half-open", guard.toJson().getString("circuit-state"));
+        trial.complete("ok");
+        Assertions.assertEquals("closed", guard.toJson().getString("circuit-state"));
+    }
+
+    @Test
+    void testBulkheadRejectedTrialGivesItsPlaceBack() throws Exception {
+        OrchestratorGuard guard = guard("{\"bulkhead\":{\"max-concurrent-calls\":2},"
+                                        + "\"circuit-breaker\":{\"request-volume-threshold\":1,\"delay-ms\":0,\"success-threshold\":2}}");
+        CompletableFuture<String> closedCall = new CompletableFuture<>();
+        CompletableFuture<String> trial      = new CompletableFuture<>();
+        guard.callAsync(() -> closedCall);
+        fail(guard);
+        guard.callAsync(() -> trial);
+        // the second trial is admitted by the circuit, but not by the full bulkhead
+        assertRejected(guard.callAsync(() -> CompletableFuture.completedFuture("rejected")));
+        Assertions.assertEquals(1, guard.toJson().getInt("bulkhead-rejected"));
+
+        closedCall.complete("ok");
+        Assertions.assertEquals("second trial", guard.call(() -> "second trial"));
+        trial.complete("ok");
+        Assertions.assertEquals("closed", guard.toJson().getString("circuit-state"));
+    }
+
+    // a circuit that opens on one failure and is half-open at once
+    private static OrchestratorGuard openGuard(int successThreshold) throws Exception {
+        OrchestratorGuard guard = guard("{\"circuit-breaker\":{\"request-volume-threshold\":1,\"delay-ms\":0,"
+                                        + "\"success-threshold\":" + successThreshold + "}}");
+        fail(guard);
+        Assertions.assertEquals("open", guard.toJson().getString("circuit-state"));
+        return guard;
+    }
+
+    private static void fail(OrchestratorGuard guard) {
+        Assertions.assertThrows(IllegalStateException.class, () -> guard.call(() -> {
+            throw new IllegalStateException("HTTP 500");
+        }));
+    }
+
+    private static void assertRejected(CompletionStage<String> stage) {
+        CompletableFuture<String> future = stage.toCompletableFuture();
+        Assertions.assertTrue(future.isCompletedExceptionally());
+        Assertions.assertTrue(OrchestratorGuard.isRejected(Assertions.assertThrows(Exception.class, future::join)));
+    }
+
+    private static OrchestratorGuard guard(String faultTolerance) {
+        return new OrchestratorGuard(Json.createReader(new StringReader(faultTolerance)).readObject());
+    }
+}
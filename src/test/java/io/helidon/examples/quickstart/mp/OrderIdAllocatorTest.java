@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, 2019 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.helidon.examples.quickstart.mp;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class OrderIdAllocatorTest {
+    private static final String PREFIX = "20190620214700";
+
+    @Test
+    void testUniqueInTheSameSecond() throws Exception {
+        OrderIdAllocator allocator = new OrderIdAllocator("07");
+        Set<String> orderIds = ConcurrentHashMap.newKeySet();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            threads.execute(() -> {
+                for (int i = 0; i < 20000; i++)
+                    orderIds.add(allocator.nextOrderId(1561060020L, PREFIX));
+            });
+        }
+        threads.shutdown();
+        Assertions.assertTrue(threads.awaitTermination(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(160000, orderIds.size());
+        Assertions.assertTrue(orderIds.contains(PREFIX + "07000"));
+        Assertions.assertTrue(orderIds.contains(PREFIX + "07159999"));
+    }
+
+    @Test
+    void testUniqueWithAThreadPerOrder() throws Exception {
+        OrderIdAllocator allocator = new OrderIdAllocator("");
+        Set<String> orderIds = ConcurrentHashMap.newKeySet();
+        ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < 20000; i++)
+            threads.execute(() -> orderIds.add(allocator.nextOrderId(1561060020L, PREFIX)));
+        threads.shutdown();
+        Assertions.assertTrue(threads.awaitTermination(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(20000, orderIds.size());
+    }
+
+    @Test
+    void testSecondRepeatedAfterLaterOnes() {
+        OrderIdAllocator allocator = new OrderIdAllocator("");
+        Set<String> first = new HashSet<>();
+        for (int i = 0; i < 2000; i++)
+            first.add(allocator.nextOrderId(1561060020L, PREFIX));
+        Assertions.assertEquals(2000, first.size());
+        Assertions.assertTrue(first.contains(PREFIX + "000"));
+        // the same slot of the ring, a later second
+        Assertions.assertEquals("later000", allocator.nextOrderId(1561060020L + 4096, "later"));
+        Set<String> repeated = new HashSet<>();
+        for (int i = 0; i < 2000; i++)
+            repeated.add(allocator.nextOrderId(1561060020L, PREFIX));
+        Assertions.assertEquals(2000, repeated.size());
+        repeated.retainAll(first);
+        Assertions.assertEquals(Set.of(), repeated);
+    }
+
+    @Test
+    void testNodeMustBeDigits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OrderIdAllocator("a1"));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, 2019 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.helidon.examples.quickstart.mp;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class OrderJsonSerializerTest {
+    // JsonObject.toString() of the baseline PizzaOrder.createJsonPizzaOrder with the values of the orders below
+    private static final String GOLDEN_FIRST =
+        "{\"order\":{\"dateTimeOrderTaken\":\"2019-06-20T21:47:00.000Z\",\"takenByEmployee\":\"sim001\","
+        + "\"customer\":{\"customerId\":{\"telephone\":\"601000000\",\"email\":\"ivan.smith@sim-email.es\"}},"
+        + "\"pizzaOrdered\":{\"baseType\":\"Small BACON SPINACH ALFREDO\",\"topping1\":\"Tuna\",\"topping2\":\"Onions\","
+        + "\"topping3\":\"Mushrooms\"},\"totalPrice\":\"10$\",\"customerAdress\":{\"street\":{\"name\":\"SimStreet\",\"long\":\"-3.607759\","
+        + "\"lat\":\"40.385053\"},\"number\":\"1\",\"door\":\"1\",\"email\":\"ivan.smith@sim-email.es\",\"citycode\":\"28001\","
+        + "\"city\":\"Madrid\"},\"orderId\":\"20190620214700000\",\"status\":\"PIZZA PAID\"},"
+        + "\"payment\":{\"paymentid\":\"p20190620214700000\",\"paymentTime\":\"2019-06-20T21:47:00.000Z\","
+        + "\"orderId\":\"20190620214700000\",\"paymentMethod\":\"AMEX\",\"serviceSurvey\":\"1\",\"totalPaid\":\"10\","
+        + "\"customerId\":\"sim345\",\"originalPrice\":\"12\"}}";
+    private static final String GOLDEN_LAST =
+        "{\"order\":{\"dateTimeOrderTaken\":\"2019-12-31T23:59:59.999Z\",\"takenByEmployee\":\"sim001\","
+        + "\"customer\":{\"customerId\":{\"telephone\":\"677999999\",\"email\":\"ivan.smith@sim-email.es\"}},"
+        + "\"pizzaOrdered\":{\"baseType\":\"X-Large ULTIMATE CHEESE LOVER\",\"topping1\":\"Mushrooms\",\"topping2\":\"BBQ Sauce\","
+        + "\"topping3\":\"Tomatos\"},\"totalPrice\":\"19$\",\"customerAdress\":{\"street\":{\"name\":\"SimStreet\",\"long\":\"-3.811778\","
+        + "\"lat\":\"40.551041\"},\"number\":\"99\",\"door\":\"4\",\"email\":\"ivan.smith@sim-email.es\",\"citycode\":\"28038\","
+        + "\"city\":\"Madrid\"},\"orderId\":\"20191231235959123456\",\"status\":\"PIZZA DELIVERED\"},"
+        + "\"payment\":{\"paymentid\":\"p20191231235959123456\",\"paymentTime\":\"2019-12-31T23:59:59.999Z\","
+        + "\"orderId\":\"20191231235959123456\",\"paymentMethod\":\"CASH\",\"serviceSurvey\":\"5\",\"totalPaid\":\"19\","
+        + "\"customerId\":\"sim345\",\"originalPrice\":\"21\"}}";
+    private static final String GOLDEN_ESCAPED =
+        "{\"order\":{\"dateTimeOrderTaken\":\"2019-06-20T21:47:01.500Z\",\"takenByEmployee\":\"sim001\","
+        + "\"customer\":{\"customerId\":{\"telephone\":\"612345678\",\"email\":\"ivan.smith@sim-email.es\"}},"
+        + "\"pizzaOrdered\":{\"baseType\":\"Medium SUPREME\",\"topping1\":\"Onions\",\"topping2\":\"Tuna\",\"topping3\":\"BBQ Sauce\"},"
+        + "\"totalPrice\":\"15$\",\"customerAdress\":{\"street\":{\"name\":\"SimStreet\",\"long\":\"-3.700000\",\"lat\":\"40.400000\"},"
+        + "\"number\":\"12\",\"door\":\"2\",\"email\":\"ivan.smith@sim-email.es\",\"citycode\":\"28010\",\"city\":\"Madrid\"},"
+        + "\"orderId\":\"20190620214701007\",\"status\":\"PIZZA PAID\"},\"payment\":{\"paymentid\":\"p20190620214701007\","
+        + "\"paymentTime\":\"2019-06-20T21:47:01.500Z\",\"orderId\":\"20190620214701007\",\"paymentMethod\":\"VISA\","
+        + "\"serviceSurvey\":\"3\",\"totalPaid\":\"15\",\"customerId\":\"sim345\",\"originalPrice\":\"17\"}}";
+
+    // status -> its JSON string in the baseline output
+    private static final String[][] ESCAPED_STATUSES = {
+        { "say \"cheese\"", "say \\\"cheese\\\"" },
+        { "back\\slash", "back\\\\slash" },
+        { "tab\tnew\nline\r", "tab\\tnew\\nline\\r" },
+        { "\b\f\u0001\u001f", "\\b\\f\\u0001\\u001f" },
+        { "Entregada a domic\u00edlio \u20ac", "Entregada a domic\u00edlio \u20ac" },
+        { "emoji \ud83c\udf55", "emoji \ud83c\udf55" },
+        { "</script>", "</script>" } };
+
+    @Test
+    void testBaselineJson() throws Exception {
+        assertJson(GOLDEN_FIRST, new GeneratedOrder("20190620214700000", "2019-06-20T21:47:00.000Z", "PIZZA PAID", "AMEX", "1",
+                                                    "10", "10$", "12", "-3.607759", "40.385053", "1", "1", "28001",
+                                                    "Small BACON SPINACH ALFREDO", "Tuna", "Onions", "Mushrooms", "601000000"));
+        assertJson(GOLDEN_LAST, new GeneratedOrder("20191231235959123456", "2019-12-31T23:59:59.999Z", "PIZZA DELIVERED", "CASH", "5",
+                                                   "19", "19$", "21", "-3.811778", "40.551041", "99", "4", "28038",
+                                                   "X-Large ULTIMATE CHEESE LOVER", "Mushrooms", "BBQ Sauce", "Tomatos", "677999999"));
+        assertJson(GOLDEN_ESCAPED, escapedOrder("PIZZA PAID"));
+    }
+
+    @Test
+    void testBaselineEscapedStatus() throws Exception {
+        for (String[] status : ESCAPED_STATUSES)
+            assertJson(GOLDEN_ESCAPED.replace("\"status\":\"PIZZA PAID\"", "\"status\":\"" + status[1] + "\""), escapedOrder(status[0]));
+    }
+
+    @Test
+    void testSameJsonAsTheOrderTree() throws Exception {
+        long date = 1561060020123L;
+        for (int i = 0; i < 1000; i++) {
+            GeneratedOrder order = OrderGenerator.generate(date + i * 997L, "PIZZA PAID");
+            assertJson(order.toJson().toString(), order);
+        }
+    }
+
+    private static GeneratedOrder escapedOrder(String status) {
+        return new GeneratedOrder("20190620214701007", "2019-06-20T21:47:01.500Z", status, "VISA", "3",
+                                  "15", "15$", "17", "-3.700000", "40.400000", "12", "2", "28010",
+                                  "Medium SUPREME", "Onions", "Tuna", "BBQ Sauce", "612345678");
+    }
+
+    private static void assertJson(String expected, GeneratedOrder order) throws Exception {
+        StringWriter writer = new StringWriter();
+        OrderJsonSerializer.writeTo(order, writer);
+        String expectedOrder = expected.substring("{\"order\":".length(), expected.indexOf(",\"payment\":{"));
+
+        Assertions.assertEquals(expected, OrderJsonSerializer.toString(order), "String");
+        Assertions.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), OrderJsonSerializer.toBytes(order), "byte[]");
+        Assertions.assertEquals(expected, writer.toString(), "Writer");
+        Assertions.assertEquals(expectedOrder, OrderJsonSerializer.orderToString(order), "order");
+    }
+}